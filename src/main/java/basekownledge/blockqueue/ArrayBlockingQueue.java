@@ -1,6 +1,7 @@
 package basekownledge.blockqueue;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
@@ -79,6 +80,29 @@ public class ArrayBlockingQueue<E> implements BlockingQueue<E>, Serializable {
         throw new IllegalStateException("队列为空!");
     }
 
+    @Override
+    public boolean remove(Object o) {
+        if(null == o){
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            int i = takeIndex.get();
+            for (int k = count.get(); k > 0; k--) {
+                if (o.equals(items[i])) {
+                    removeAt(i);
+                    return true;
+                }
+                if (++i == items.length) {
+                    i = 0;
+                }
+            }
+            return false;
+        }finally {
+            reentrantLock.unlock();
+        }
+    }
+
     @Override
     public boolean offer(E e) {
         if(null == e){
@@ -91,12 +115,41 @@ public class ArrayBlockingQueue<E> implements BlockingQueue<E>, Serializable {
                 return false;
             }
             this.insert(e);
+            notEmptyCondition.signal();
             return true;
         }finally {
             reentrantLock.unlock();
         }
     }
 
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        for (E e : c) {
+            if (null == e) {
+                throw new NullPointerException();
+            }
+        }
+        reentrantLock.lock();
+        try {
+            int n = Math.min(c.size(), items.length - count.get());
+            int i = 0;
+            for (E e : c) {
+                if (i == n) {
+                    break;
+                }
+                insert(e);
+                i++;
+            }
+            //有多少个元素入队就最多唤醒多少个消费者，没有等待者时提前结束
+            for (int k = 0; k < n && reentrantLock.hasWaiters(notEmptyCondition); k++) {
+                notEmptyCondition.signal();
+            }
+            return n;
+        }finally {
+            reentrantLock.unlock();
+        }
+    }
+
     @Override
     public E poll() {
         try {
@@ -104,7 +157,9 @@ public class ArrayBlockingQueue<E> implements BlockingQueue<E>, Serializable {
             if(count.get() == 0){
                 return null;
             }
-            return delete();
+            E result = delete();
+            notFullCondition.signal();
+            return result;
         }finally {
             reentrantLock.unlock();
         }
@@ -187,13 +242,113 @@ public class ArrayBlockingQueue<E> implements BlockingQueue<E>, Serializable {
                 nanos = notEmptyCondition.awaitNanos(nanos);
             }
             E result = delete();
-            notEmptyCondition.signal();
+            notFullCondition.signal();
             return result;
         }finally {
             reentrantLock.unlock();
         }
     }
 
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+        if(maxElements <= 0){
+            return 0;
+        }
+        reentrantLock.lock();
+        try {
+            return drain(c, maxElements);
+        }finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public int pollBatch(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+        if(maxElements <= 0){
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count.get() == 0){
+                if(nanos <= 0){
+                    return 0;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            return drain(c, maxElements);
+        }finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    /**
+     * 空转阶段只读原子计数器判断队列是否为空，不加锁，避免空转的消费者和生产者争抢锁
+     */
+    @Override
+    public E poll(IdleStrategy idleStrategy, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; ; ) {
+            if (count.get() > 0) {
+                E e = poll();
+                if (null != e) {
+                    return e;
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0L) {
+                return null;
+            }
+            if (!idleStrategy.idle(attempt)) {
+                return poll(nanos, TimeUnit.NANOSECONDS);
+            }
+            if (attempt < Integer.MAX_VALUE) {
+                attempt++;
+            }
+        }
+    }
+
+    @Override
+    public int pollBatch(Collection<? super E> c, int maxElements, IdleStrategy idleStrategy, long timeout, TimeUnit unit) throws InterruptedException {
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+        if(maxElements <= 0){
+            return 0;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; ; ) {
+            if (count.get() > 0) {
+                int n = drainTo(c, maxElements);
+                if (n > 0) {
+                    return n;
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0L) {
+                return 0;
+            }
+            if (!idleStrategy.idle(attempt)) {
+                return pollBatch(c, maxElements, nanos, TimeUnit.NANOSECONDS);
+            }
+            if (attempt < Integer.MAX_VALUE) {
+                attempt++;
+            }
+        }
+    }
+
     @Override
     public int size() {
         return count.get();
@@ -218,6 +373,48 @@ public class ArrayBlockingQueue<E> implements BlockingQueue<E>, Serializable {
         }
         count.incrementAndGet();
     }
+    /**
+     * 批量移除元素(调用方必须持有锁)，移除了多少个元素就最多唤醒多少个生产者
+     * @param c-接收元素的集合
+     * @param maxElements-最多移除的元素个数
+     * @title drain
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    private int drain(Collection<? super E> c, int maxElements){
+        int n = Math.min(maxElements, count.get());
+        for (int i = 0; i < n; i++) {
+            c.add(delete());
+        }
+        for (int k = 0; k < n && reentrantLock.hasWaiters(notFullCondition); k++) {
+            notFullCondition.signal();
+        }
+        return n;
+    }
+    /**
+     * 移除指定下标的元素，后面的元素依次前移(调用方必须持有锁)
+     * @param removeIndex-待移除元素的下标
+     * @title removeAt
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void removeAt(int removeIndex){
+        int put = putIndex.get();
+        int i = removeIndex;
+        for (;;) {
+            int next = (i + 1 == items.length) ? 0 : i + 1;
+            if (next == put) {
+                items[i] = null;
+                putIndex.set(i);
+                break;
+            }
+            items[i] = items[next];
+            i = next;
+        }
+        count.decrementAndGet();
+        notFullCondition.signal();
+    }
     /**
      * 移除元素
      * @title delete
@@ -227,6 +424,7 @@ public class ArrayBlockingQueue<E> implements BlockingQueue<E>, Serializable {
      */
     private E delete(){
         E result = (E)items[takeIndex.get()];
+        items[takeIndex.get()] = null;
         if (takeIndex.incrementAndGet() == items.length) {
             takeIndex.set(0);
         }
@@ -0,0 +1,72 @@
+package basekownledge.blockqueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 退避策略：先空转，再让出CPU，最后按指数退避短暂park(minParkNanos翻倍直到maxParkNanos)，从不在队列上阻塞
+ * 生产者不需要唤醒消费者，空闲时CPU占用随park时间增长而下降，最坏交接延迟为maxParkNanos
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title BackoffParkIdleStrategy
+ * @date 2026/10/17
+ */
+public class BackoffParkIdleStrategy implements IdleStrategy {
+    /**
+     * 空转次数
+     */
+    private final int spins;
+    /**
+     * 空转之后让出CPU的次数
+     */
+    private final int yields;
+    /**
+     * 最短park时间(纳秒)
+     */
+    private final long minParkNanos;
+    /**
+     * 最长park时间(纳秒)
+     */
+    private final long maxParkNanos;
+    /**
+     * 默认：空转10次，让出CPU 20次，park时间1微秒到1毫秒
+     */
+    public BackoffParkIdleStrategy() {
+        this(10, 20, TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    /**
+     * 构造函数
+     * @param spins-空转次数
+     * @param yields-空转之后让出CPU的次数
+     * @param minParkNanos-最短park时间(纳秒)
+     * @param maxParkNanos-最长park时间(纳秒)
+     */
+    public BackoffParkIdleStrategy(int spins, int yields, long minParkNanos, long maxParkNanos) {
+        if (spins < 0 || yields < 0 || minParkNanos <= 0 || maxParkNanos < minParkNanos) {
+            throw new IllegalArgumentException();
+        }
+        this.spins = spins;
+        this.yields = yields;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+    }
+
+    @Override
+    public boolean idle(int attempt) {
+        if (attempt < spins) {
+            return true;
+        }
+        int parks = attempt - spins - yields;
+        if (parks < 0) {
+            Thread.yield();
+            return true;
+        }
+        //最多左移到maxParkNanos为止，避免溢出
+        long nanos = minParkNanos;
+        while (parks-- > 0 && nanos < maxParkNanos) {
+            nanos <<= 1;
+        }
+        LockSupport.parkNanos(this, Math.min(nanos, maxParkNanos));
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package basekownledge.blockqueue;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,6 +29,15 @@ public interface BlockingQueue<E> {
      * @return
      */
     boolean remove();
+    /**
+     * 移除队列中指定的元素，成功则返回true,元素不存在(或队列不支持任意位置删除)则返回false
+     * @param o-元素
+     * @title remove
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    boolean remove(Object o);
     /**
      * 向队尾插入元素，成功则返回true,失败(队列已满)则返回false
      * @param e-元素
@@ -107,4 +117,120 @@ public interface BlockingQueue<E> {
      * @return int
      */
     int length();
+    /**
+     * 批量向队尾插入元素，按集合的迭代顺序插入，直到队列已满为止，返回成功插入的元素个数
+     * (即集合中前n个元素入队成功，其余元素未入队)。默认实现逐个调用offer，具体实现应当一次加锁/一次CAS完成
+     * @param c-元素集合(不能包含null)
+     * @title offerAll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    default int offerAll(Collection<? extends E> c) {
+        int n = 0;
+        for (E e : c) {
+            if (!offer(e)) {
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+    /**
+     * 批量移除队首元素并放入集合c，最多移除maxElements个，队列为空时立即返回
+     * 默认实现逐个调用poll，具体实现应当一次加锁/一次CAS完成
+     * @param c-接收元素的集合
+     * @param maxElements-最多移除的元素个数
+     * @title drainTo
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int 实际移除的元素个数
+     */
+    default int drainTo(Collection<? super E> c, int maxElements) {
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+    /**
+     * 批量移除队首元素并放入集合c，最多移除maxElements个，若队列为空，则等待timeout指定的时间，
+     * 等到元素后把当时队列中已有的元素(不超过maxElements个)一起取走
+     * @param c-接收元素的集合
+     * @param maxElements-最多移除的元素个数
+     * @param timeout-超时时间
+     * @param unit-时间单位
+     * @title pollBatch
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int 实际移除的元素个数，超时返回0
+     */
+    default int pollBatch(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        if (maxElements <= 0) {
+            return 0;
+        }
+        E first = poll(timeout, unit);
+        if (null == first) {
+            return 0;
+        }
+        c.add(first);
+        return 1 + drainTo(c, maxElements - 1);
+    }
+    /**
+     * 按空闲策略移除队首元素：队列为空时先按策略空转重试，策略放弃后再阻塞等待，总等待时间不超过timeout
+     * @param idleStrategy-空闲策略
+     * @param timeout-超时时间(Long.MAX_VALUE纳秒视为一直等待)
+     * @param unit-时间单位
+     * @title poll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E 超时返回null
+     */
+    default E poll(IdleStrategy idleStrategy, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; ; ) {
+            E e = poll();
+            if (null != e) {
+                return e;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0L) {
+                return null;
+            }
+            if (!idleStrategy.idle(attempt)) {
+                return poll(nanos, TimeUnit.NANOSECONDS);
+            }
+            if (attempt < Integer.MAX_VALUE) {
+                attempt++;
+            }
+        }
+    }
+    /**
+     * 按空闲策略批量移除队首元素，队列为空时的等待方式同poll(IdleStrategy, long, TimeUnit)
+     * @param c-接收元素的集合
+     * @param maxElements-最多移除的元素个数
+     * @param idleStrategy-空闲策略
+     * @param timeout-超时时间(Long.MAX_VALUE纳秒视为一直等待)
+     * @param unit-时间单位
+     * @title pollBatch
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int 实际移除的元素个数，超时返回0
+     */
+    default int pollBatch(Collection<? super E> c, int maxElements, IdleStrategy idleStrategy, long timeout, TimeUnit unit) throws InterruptedException {
+        if (maxElements <= 0) {
+            return 0;
+        }
+        E first = poll(idleStrategy, timeout, unit);
+        if (null == first) {
+            return 0;
+        }
+        c.add(first);
+        return 1 + drainTo(c, maxElements - 1);
+    }
 }
@@ -0,0 +1,17 @@
+package basekownledge.blockqueue;
+
+/**
+ * 忙等策略：一直空转重试，从不让出CPU也不阻塞
+ * 交接延迟最低，但每个空闲的消费者都会占满一个CPU核，只适合线程数不超过空闲核数的延迟敏感场景
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title BusySpinIdleStrategy
+ * @date 2026/10/17
+ */
+public class BusySpinIdleStrategy implements IdleStrategy {
+
+    @Override
+    public boolean idle(int attempt) {
+        return true;
+    }
+}
@@ -0,0 +1,425 @@
+package basekownledge.blockqueue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 容量可伸缩的有界阻塞队列
+ * 容量上限为maxCapacity，但底层数组只从minCapacity开始分配：元素个数超过数组长度的3/4(高水位)时数组翻倍，直到maxCapacity；
+ * 元素个数持续低于数组长度的1/4(低水位)超过shrinkDelay后数组减半，直到minCapacity。
+ * 空闲的线程池只占用很小的数组，突发流量时又能像大数组一样吸收；伸缩都在同一把锁内完成，语义与ArrayBlockingQueue相同。
+ * 收缩检查发生在入队、出队以及队列为空时的poll中，线程池worker按keepAlive周期poll，空闲后数组也会被收回。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title ElasticArrayBlockingQueue
+ * @date 2026/10/17
+ */
+public class ElasticArrayBlockingQueue<E> implements BlockingQueue<E> {
+    /**
+     * 默认低占用持续1s后收缩
+     */
+    private static final long DEFAULT_SHRINK_DELAY_MILLIS = 1000;
+    /**
+     * 元素
+     */
+    private Object[] items;
+    /**
+     * 队首下标
+     */
+    private int takeIndex;
+    /**
+     * 队尾下标
+     */
+    private int putIndex;
+    /**
+     * 队列元素个数
+     */
+    private volatile int count;
+    /**
+     * 数组长度下限
+     */
+    private final int minCapacity;
+    /**
+     * 容量上限
+     */
+    private final int maxCapacity;
+    /**
+     * 低占用持续多久后收缩(纳秒)
+     */
+    private final long shrinkDelayNanos;
+    /**
+     * 开始低于低水位的时间，0表示当前不在低水位
+     */
+    private long lowSince;
+    /**
+     * 锁
+     */
+    private final ReentrantLock reentrantLock;
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition;
+    /**
+     * 队列未满条件
+     */
+    private final Condition notFullCondition;
+
+    public ElasticArrayBlockingQueue(int minCapacity, int maxCapacity) {
+        this(minCapacity, maxCapacity, DEFAULT_SHRINK_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    /**
+     * 构造函数
+     * @param minCapacity-数组长度下限(初始长度)
+     * @param maxCapacity-容量上限
+     * @param shrinkDelay-低占用持续多久后收缩
+     * @param unit-时间单位
+     */
+    public ElasticArrayBlockingQueue(int minCapacity, int maxCapacity, long shrinkDelay, TimeUnit unit) {
+        if (minCapacity <= 0 || maxCapacity < minCapacity || shrinkDelay < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+        this.shrinkDelayNanos = unit.toNanos(shrinkDelay);
+        items = new Object[minCapacity];
+        reentrantLock = new ReentrantLock();
+        notEmptyCondition = reentrantLock.newCondition();
+        notFullCondition = reentrantLock.newCondition();
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if (null != poll()) {
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (null == o) {
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            int i = takeIndex;
+            for (int k = count; k > 0; k--) {
+                if (o.equals(items[i])) {
+                    removeAt(i);
+                    return true;
+                }
+                if (++i == items.length) {
+                    i = 0;
+                }
+            }
+            return false;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            if (count == maxCapacity) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        for (E e : c) {
+            if (null == e) {
+                throw new NullPointerException();
+            }
+        }
+        reentrantLock.lock();
+        try {
+            int n = Math.min(c.size(), maxCapacity - count);
+            if (n <= 0) {
+                return 0;
+            }
+            //一次扩到足够的长度，避免批量入队过程中多次拷贝
+            ensureCapacity(count + n);
+            int i = 0;
+            for (E e : c) {
+                if (i == n) {
+                    break;
+                }
+                enqueue(e);
+                i++;
+            }
+            return n;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        reentrantLock.lock();
+        try {
+            if (count == 0) {
+                maybeShrink();
+                return null;
+            }
+            return dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        reentrantLock.lock();
+        try {
+            return count == 0 ? null : (E) items[takeIndex];
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmptyCondition.await();
+            }
+            return dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == maxCapacity) {
+                notFullCondition.await();
+            }
+            enqueue(e);
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) {
+            return false;
+        }
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == maxCapacity) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFullCondition.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    maybeShrink();
+                    return null;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        reentrantLock.lock();
+        try {
+            int n = Math.min(maxElements, count);
+            for (int i = 0; i < n; i++) {
+                c.add(dequeue());
+            }
+            return n;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+    /**
+     * 容量上限
+     */
+    @Override
+    public int length() {
+        return maxCapacity;
+    }
+    /**
+     * 当前底层数组的长度
+     * @title getArrayLength
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getArrayLength() {
+        reentrantLock.lock();
+        try {
+            return items.length;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 入队，超过高水位时先扩容(调用方必须持有锁并且保证count < maxCapacity)
+     * @param e-元素
+     * @title enqueue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void enqueue(E e) {
+        int c = count + 1;
+        if (c > items.length - (items.length >>> 2)) {
+            ensureCapacity(c);
+        }
+        items[putIndex] = e;
+        if (++putIndex == items.length) {
+            putIndex = 0;
+        }
+        count = c;
+        if (c > items.length >>> 2) {
+            lowSince = 0L;
+        }
+        notEmptyCondition.signal();
+    }
+    /**
+     * 出队，之后检查是否需要收缩(调用方必须持有锁并且保证队列不为空)
+     * @title dequeue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E
+     */
+    private E dequeue() {
+        E result = (E) items[takeIndex];
+        items[takeIndex] = null;
+        if (++takeIndex == items.length) {
+            takeIndex = 0;
+        }
+        count--;
+        notFullCondition.signal();
+        maybeShrink();
+        return result;
+    }
+
+    private void removeAt(int removeIndex) {
+        int i = removeIndex;
+        for (;;) {
+            int next = (i + 1 == items.length) ? 0 : i + 1;
+            if (next == putIndex) {
+                items[i] = null;
+                putIndex = i;
+                break;
+            }
+            items[i] = items[next];
+            i = next;
+        }
+        count--;
+        notFullCondition.signal();
+    }
+    /**
+     * 按翻倍扩容，使元素个数c不超过新长度的3/4(不超过maxCapacity)
+     * @param c-扩容后需要容纳的元素个数
+     * @title ensureCapacity
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void ensureCapacity(int c) {
+        int length = items.length;
+        while (length < maxCapacity && c > length - (length >>> 2)) {
+            length = (int) Math.min((long) length << 1, maxCapacity);
+        }
+        if (length != items.length) {
+            resize(length);
+        }
+    }
+    /**
+     * 元素个数持续低于低水位超过shrinkDelay时数组减半
+     * @title maybeShrink
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void maybeShrink() {
+        int length = items.length;
+        if (length == minCapacity || count > length >>> 2) {
+            lowSince = 0L;
+            return;
+        }
+        long now = System.nanoTime();
+        if (lowSince == 0L) {
+            lowSince = now;
+        } else if (now - lowSince >= shrinkDelayNanos) {
+            resize(Math.max(minCapacity, length >>> 1));
+            //收缩后重新计时，持续低占用时每个shrinkDelay减半一次
+            lowSince = now;
+        }
+    }
+    /**
+     * 把环形数组中的元素按顺序拷贝到新数组的开头
+     * @param length-新数组长度
+     * @title resize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void resize(int length) {
+        Object[] newItems = new Object[length];
+        int n = count;
+        int first = Math.min(n, items.length - takeIndex);
+        System.arraycopy(items, takeIndex, newItems, 0, first);
+        System.arraycopy(items, 0, newItems, first, n - first);
+        items = newItems;
+        takeIndex = 0;
+        putIndex = n == length ? 0 : n;
+    }
+}
@@ -0,0 +1,316 @@
+package basekownledge.blockqueue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 直接交接的阻塞队列
+ * 在一个普通的缓冲队列外面加一层交接通道：没有元素可取的消费者登记为等待者后park，
+ * 生产者入队时如果有等待者，直接把元素交给它并unpark(类似SynchronousQueue/LinkedTransferQueue的transfer)，
+ * 不经过缓冲队列的入队、出队和条件信号；没有等待者时才放入缓冲队列。
+ * 等待者按后进先出交接，最近空闲的线程缓存最热，也让多余的线程能够按keepAlive超时退出。
+ * 消费者登记后会再检查一次缓冲队列，生产者放入缓冲队列后会再检查一次等待者，两边至少有一方能看到对方，不会丢失唤醒。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title HandoffBlockingQueue
+ * @date 2026/10/17
+ */
+public class HandoffBlockingQueue<E> implements BlockingQueue<E> {
+    /**
+     * 等待者已取消(超时或者被中断)
+     */
+    private static final Object CANCELLED = new Object();
+    /**
+     * 缓冲队列中有了元素，唤醒等待者重新去缓冲队列取
+     */
+    private static final Object WAKEUP = new Object();
+    /**
+     * 缓冲队列
+     */
+    private final BlockingQueue<E> buffer;
+    /**
+     * 等待中的消费者(栈顶是最近开始等待的)
+     */
+    private final ConcurrentLinkedDeque<Waiter> waiters = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 构造函数
+     * @param buffer-没有等待者时使用的缓冲队列
+     */
+    public HandoffBlockingQueue(BlockingQueue<E> buffer) {
+        if (null == buffer) {
+            throw new NullPointerException();
+        }
+        this.buffer = buffer;
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if (null != poll()) {
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return buffer.remove(o);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            return false;
+        }
+        if (tryTransfer(e)) {
+            return true;
+        }
+        if (buffer.offer(e)) {
+            wakeWaiter();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        for (E e : c) {
+            if (null == e) {
+                throw new NullPointerException();
+            }
+        }
+        int transferred = 0;
+        Iterator<? extends E> it = c.iterator();
+        //先交给等待者，剩下的整批放入缓冲队列
+        while (it.hasNext() && !waiters.isEmpty()) {
+            E e = it.next();
+            if (!tryTransfer(e)) {
+                return transferred + offerRest(e, it);
+            }
+            transferred++;
+        }
+        return it.hasNext() ? transferred + offerRest(null, it) : transferred;
+    }
+
+    @Override
+    public E poll() {
+        return buffer.poll();
+    }
+
+    @Override
+    public E peek() {
+        return buffer.peek();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return awaitElement(false, 0L);
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        if (tryTransfer(e)) {
+            return;
+        }
+        buffer.put(e);
+        wakeWaiter();
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) {
+            return false;
+        }
+        if (tryTransfer(e)) {
+            return true;
+        }
+        if (buffer.offer(e, timeout, unit)) {
+            wakeWaiter();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return awaitElement(true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        return buffer.drainTo(c, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return buffer.size();
+    }
+
+    @Override
+    public int length() {
+        return buffer.length();
+    }
+    /**
+     * 有等待中的消费者时直接把元素交给它，否则返回false，元素不入队
+     * @param e-元素
+     * @title tryTransfer
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean tryTransfer(E e) {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        Waiter w;
+        while ((w = waiters.pollFirst()) != null) {
+            if (w.item.compareAndSet(null, e)) {
+                LockSupport.unpark(w.thread);
+                return true;
+            }
+            //已取消的等待者，丢弃后继续找下一个
+        }
+        return false;
+    }
+    /**
+     * 是否有等待中的消费者
+     * @title hasWaitingConsumer
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean hasWaitingConsumer() {
+        return !waiters.isEmpty();
+    }
+    /**
+     * 剩余元素整批放入缓冲队列
+     */
+    private int offerRest(E first, Iterator<? extends E> it) {
+        List<E> rest = new ArrayList<>();
+        if (null != first) {
+            rest.add(first);
+        }
+        while (it.hasNext()) {
+            rest.add(it.next());
+        }
+        int n = buffer.offerAll(rest);
+        for (int k = 0; k < n && !waiters.isEmpty(); k++) {
+            wakeWaiter();
+        }
+        return n;
+    }
+    /**
+     * 元素放入缓冲队列之后，若有等待者(可能在我们放入之前检查过缓冲队列)，唤醒一个让它重新去取
+     * @title wakeWaiter
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void wakeWaiter() {
+        Waiter w;
+        while ((w = waiters.pollFirst()) != null) {
+            if (w.item.compareAndSet(null, WAKEUP)) {
+                LockSupport.unpark(w.thread);
+                return;
+            }
+        }
+    }
+    /**
+     * 取元素：先取缓冲队列，为空则登记为等待者后park，直到被交接元素、被唤醒重试、超时或者中断
+     * @param timed-是否限时
+     * @param nanos-限时的纳秒数
+     * @title awaitElement
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E 超时返回null
+     */
+    private E awaitElement(boolean timed, long nanos) throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        for (;;) {
+            E e = buffer.poll();
+            if (null != e) {
+                return e;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (timed && deadline - System.nanoTime() <= 0L) {
+                return null;
+            }
+            Waiter w = new Waiter(Thread.currentThread());
+            waiters.addFirst(w);
+            //登记之后再检查一次缓冲队列，避免生产者在我们检查之后、登记之前放入了缓冲队列
+            if (buffer.size() > 0 && w.cancel()) {
+                waiters.remove(w);
+                continue;
+            }
+            for (;;) {
+                Object x = w.item.get();
+                if (x == WAKEUP) {
+                    break;
+                }
+                if (null != x && x != CANCELLED) {
+                    return (E) x;
+                }
+                if (Thread.interrupted()) {
+                    if (w.cancel()) {
+                        waiters.remove(w);
+                        throw new InterruptedException();
+                    }
+                    //取消失败说明元素已经交过来了，先收下元素，保留中断状态
+                    Thread.currentThread().interrupt();
+                    continue;
+                }
+                if (timed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        if (w.cancel()) {
+                            waiters.remove(w);
+                            return null;
+                        }
+                        continue;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * 等待中的消费者
+     */
+    private static final class Waiter {
+
+        final Thread thread;
+        /**
+         * null表示等待中，其他取值为交接过来的元素、WAKEUP或者CANCELLED
+         */
+        final AtomicReference<Object> item = new AtomicReference<>();
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+
+        boolean cancel() {
+            return item.compareAndSet(null, CANCELLED);
+        }
+    }
+}
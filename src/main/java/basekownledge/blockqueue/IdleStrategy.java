@@ -0,0 +1,24 @@
+package basekownledge.blockqueue;
+
+/**
+ * 消费者空闲策略：队列为空时在阻塞等待之前怎样空转
+ * 直接阻塞(park)最省CPU，但下一个元素到来时要付出一次unpark和线程切换的延迟；
+ * 空转/让出CPU能把交接延迟降到微秒级，代价是空闲时也占用CPU。
+ * 策略本身不保存状态，同一个实例可以被多个线程共享，空转的次数由调用方传入。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title IdleStrategy
+ * @date 2026/10/17
+ */
+public interface IdleStrategy {
+
+    /**
+     * 第attempt次(从0开始)没有取到元素时调用，执行一次空转/让出CPU/短暂park
+     * @param attempt-连续没有取到元素的次数
+     * @title idle
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean true：继续重试；false：放弃空转，由调用方在队列上阻塞等待生产者唤醒
+     */
+    boolean idle(int attempt);
+}
@@ -0,0 +1,396 @@
+package basekownledge.blockqueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * long专用的有界阻塞队列
+ * 阻塞语义与ArrayBlockingQueue一致，元素直接存放在long[]环形数组中，入队出队都不装箱，
+ * 适合商品ID之类大量基本类型数据的分发。取元素的方法在队列为空时返回调用方给出的emptyValue，
+ * 批量方法直接读写调用方的long[]，一次加锁完成。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title LongBlockingQueue
+ * @date 2026/10/17
+ */
+public class LongBlockingQueue {
+    /**
+     * 元素
+     */
+    private final long[] items;
+    /**
+     * 队首下标
+     */
+    private int takeIndex;
+    /**
+     * 队尾下标
+     */
+    private int putIndex;
+    /**
+     * 队列元素个数
+     */
+    private volatile int count;
+    /**
+     * 锁
+     */
+    private final ReentrantLock reentrantLock;
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition;
+    /**
+     * 队列未满条件
+     */
+    private final Condition notFullCondition;
+
+    public LongBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        items = new long[capacity];
+        reentrantLock = new ReentrantLock();
+        notEmptyCondition = reentrantLock.newCondition();
+        notFullCondition = reentrantLock.newCondition();
+    }
+    /**
+     * 添加元素，队列已满时抛出异常
+     * @param e-元素
+     * @title add
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean add(long e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+    /**
+     * 移除队首元素，队列为空时抛出异常
+     * @title remove
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 被移除的元素
+     */
+    public long remove() {
+        reentrantLock.lock();
+        try {
+            if (count == 0) {
+                throw new IllegalStateException("队列为空!");
+            }
+            return dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 移除第一个等于e的元素
+     * @param e-元素
+     * @title remove
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean remove(long e) {
+        reentrantLock.lock();
+        try {
+            int i = takeIndex;
+            for (int k = count; k > 0; k--) {
+                if (items[i] == e) {
+                    removeAt(i);
+                    return true;
+                }
+                if (++i == items.length) {
+                    i = 0;
+                }
+            }
+            return false;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 添加元素，队列已满时返回false
+     * @param e-元素
+     * @title offer
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean offer(long e) {
+        reentrantLock.lock();
+        try {
+            if (count == items.length) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 添加元素，若队列已满，则等待timeout指定的时间
+     * @param e-元素
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @title offer
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 超时返回false
+     */
+    public boolean offer(long e, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFullCondition.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 添加元素，队列已满时一直等待
+     * @param e-元素
+     * @title put
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void put(long e) throws InterruptedException {
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                notFullCondition.await();
+            }
+            enqueue(e);
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 批量添加values[offset, offset+length)中的元素，放不下的部分不添加
+     * @param values-元素数组
+     * @param offset-起始下标
+     * @param length-元素个数
+     * @title offerAll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int 实际添加的个数
+     */
+    public int offerAll(long[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > values.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        reentrantLock.lock();
+        try {
+            int n = Math.min(length, items.length - count);
+            //最多分两段拷贝进环形数组
+            int first = Math.min(n, items.length - putIndex);
+            System.arraycopy(values, offset, items, putIndex, first);
+            System.arraycopy(values, offset + first, items, 0, n - first);
+            putIndex = (putIndex + n) % items.length;
+            count += n;
+            for (int k = 0; k < n && reentrantLock.hasWaiters(notEmptyCondition); k++) {
+                notEmptyCondition.signal();
+            }
+            return n;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 移除队首元素，队列为空时返回emptyValue
+     * @param emptyValue-队列为空时的返回值
+     * @title poll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long poll(long emptyValue) {
+        reentrantLock.lock();
+        try {
+            return count == 0 ? emptyValue : dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 移除队首元素，若队列为空，则等待timeout指定的时间
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @param emptyValue-超时的返回值
+     * @title poll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long poll(long timeout, TimeUnit unit, long emptyValue) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return emptyValue;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 获取但不移除队首元素，队列为空时返回emptyValue
+     * @param emptyValue-队列为空时的返回值
+     * @title peek
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long peek(long emptyValue) {
+        reentrantLock.lock();
+        try {
+            return count == 0 ? emptyValue : items[takeIndex];
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 移除队首元素，队列为空时一直等待
+     * @title take
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long take() throws InterruptedException {
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmptyCondition.await();
+            }
+            return dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 批量移除队首元素放入dst[offset, offset+maxElements)，队列为空时立即返回
+     * @param dst-接收元素的数组
+     * @param offset-起始下标
+     * @param maxElements-最多移除的个数
+     * @title drainTo
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int 实际移除的个数
+     */
+    public int drainTo(long[] dst, int offset, int maxElements) {
+        if (offset < 0 || maxElements < 0 || offset + maxElements > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        reentrantLock.lock();
+        try {
+            return drain(dst, offset, maxElements);
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 批量移除队首元素放入dst[offset, offset+maxElements)，若队列为空，则等待timeout指定的时间，
+     * 等到元素后把当时队列中已有的元素(不超过maxElements个)一起取走
+     * @param dst-接收元素的数组
+     * @param offset-起始下标
+     * @param maxElements-最多移除的个数
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @title pollBatch
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int 实际移除的个数，超时返回0
+     */
+    public int pollBatch(long[] dst, int offset, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offset < 0 || maxElements < 0 || offset + maxElements > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (maxElements == 0) {
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return 0;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            return drain(dst, offset, maxElements);
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int length() {
+        return items.length;
+    }
+
+    private void enqueue(long e) {
+        items[putIndex] = e;
+        if (++putIndex == items.length) {
+            putIndex = 0;
+        }
+        count++;
+        notEmptyCondition.signal();
+    }
+
+    private long dequeue() {
+        long result = items[takeIndex];
+        if (++takeIndex == items.length) {
+            takeIndex = 0;
+        }
+        count--;
+        notFullCondition.signal();
+        return result;
+    }
+    /**
+     * 批量出队，最多分两段拷贝出环形数组(调用方必须持有锁)
+     */
+    private int drain(long[] dst, int offset, int maxElements) {
+        int n = Math.min(maxElements, count);
+        int first = Math.min(n, items.length - takeIndex);
+        System.arraycopy(items, takeIndex, dst, offset, first);
+        System.arraycopy(items, 0, dst, offset + first, n - first);
+        takeIndex = (takeIndex + n) % items.length;
+        count -= n;
+        for (int k = 0; k < n && reentrantLock.hasWaiters(notFullCondition); k++) {
+            notFullCondition.signal();
+        }
+        return n;
+    }
+
+    private void removeAt(int removeIndex) {
+        int i = removeIndex;
+        for (;;) {
+            int next = (i + 1 == items.length) ? 0 : i + 1;
+            if (next == putIndex) {
+                putIndex = i;
+                break;
+            }
+            items[i] = items[next];
+            i = next;
+        }
+        count--;
+        notFullCondition.signal();
+    }
+}
@@ -0,0 +1,538 @@
+package basekownledge.blockqueue;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 无锁有界多生产者多消费者环形队列
+ * 每个槽位带一个序号(sequence)：生产者/消费者只需要对队尾/队首计数器做一次CAS就能占到槽位，
+ * 再通过写槽位序号把元素发布出去，offer/poll/peek全程不加锁。
+ * 只有put/take以及带超时的offer/poll在队列满/空时才会退化为加锁park等待。
+ * remove(Object)把元素所在槽位CAS成墓碑，槽位仍然按顺序被消费者占用，消费者遇到墓碑直接释放槽位后继续取下一个；
+ * 墓碑在被消费者跳过之前仍然计入size()和容量。线程池shutdown时据此撤回刚入队的任务。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title MpmcArrayBlockingQueue
+ * @date 2026/10/17
+ */
+public class MpmcArrayBlockingQueue<E> implements BlockingQueue<E> {
+    /**
+     * 计数器之间的填充长度(16个long = 128字节，同时避开相邻缓存行预取)
+     */
+    private static final int PAD = 16;
+    /**
+     * 队尾计数器(生产者)在indexes中的下标
+     */
+    private static final int TAIL = PAD;
+    /**
+     * 队首计数器(消费者)在indexes中的下标
+     */
+    private static final int HEAD = PAD * 2;
+    /**
+     * 阻塞操作进入park之前的自旋次数
+     */
+    private static final int SPINS = 64;
+    /**
+     * 被remove(Object)移除的元素留下的墓碑
+     */
+    private static final Object TOMBSTONE = new Object();
+    /**
+     * 队尾/队首计数器，放在同一个数组里用下标隔开，保证两者不在同一个缓存行
+     */
+    private final AtomicLongArray indexes = new AtomicLongArray(PAD * 3);
+    /**
+     * 槽位序号：等于下标时表示可写，等于下标+1时表示可读
+     */
+    private final AtomicLongArray sequences;
+    /**
+     * 队列容器
+     */
+    private final AtomicReferenceArray<Object> items;
+    /**
+     * 下标掩码(容量为2的幂)
+     */
+    private final int mask;
+    /**
+     * 阻塞等待时使用的锁
+     */
+    private final ReentrantLock waitLock = new ReentrantLock();
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition = waitLock.newCondition();
+    /**
+     * 队列未满条件
+     */
+    private final Condition notFullCondition = waitLock.newCondition();
+    /**
+     * 正在等待的消费者数量(只在waitLock下修改)
+     */
+    private volatile int waitingConsumers;
+    /**
+     * 正在等待的生产者数量(只在waitLock下修改)
+     */
+    private volatile int waitingProducers;
+
+    /**
+     * 构造函数，容量会向上取整为2的幂
+     * @param length-队列容量
+     */
+    public MpmcArrayBlockingQueue(int length) {
+        if (length <= 0 || length > (1 << 30)) {
+            throw new IllegalArgumentException();
+        }
+        int capacity = 1;
+        while (capacity < length) {
+            capacity <<= 1;
+        }
+        items = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        if(this.offer(e)){
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if(null != poll()){
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+
+    /**
+     * 从队首到队尾扫描已发布的槽位，找到相等的元素后CAS成墓碑；与消费者竞争同一个元素时只有一方成功
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (null == o) {
+            return false;
+        }
+        long tail = indexes.get(TAIL);
+        for (long pos = indexes.get(HEAD); pos < tail; pos++) {
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                //还没发布或者已经被消费
+                continue;
+            }
+            Object x = items.get(index);
+            if (null != x && x != TOMBSTONE && o.equals(x) && items.compareAndSet(index, x, TOMBSTONE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if(null == e){
+            return false;
+        }
+        long pos = indexes.get(TAIL);
+        for (;;) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (indexes.compareAndSet(TAIL, pos, pos + 1)) {
+                    items.lazySet(index, e);
+                    //写序号即发布元素，消费者读到序号后一定能看到items[index]
+                    sequences.set(index, pos + 1);
+                    signalNotEmpty();
+                    return true;
+                }
+                pos = indexes.get(TAIL);
+            } else if (dif < 0) {
+                //槽位还没有被上一轮的消费者释放，队列已满
+                return false;
+            } else {
+                pos = indexes.get(TAIL);
+            }
+        }
+    }
+
+    /**
+     * 批量入队：根据队首计数器算出剩余容量，一次CAS在队尾预留n个连续槽位，再逐个写入并发布
+     */
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        for (E e : c) {
+            if (null == e) {
+                throw new NullPointerException();
+            }
+        }
+        int size = c.size();
+        if (size == 0) {
+            return 0;
+        }
+        long pos;
+        int n;
+        for (;;) {
+            pos = indexes.get(TAIL);
+            long free = items.length() - (pos - indexes.get(HEAD));
+            n = (int) Math.min(size, free);
+            if (n <= 0) {
+                return 0;
+            }
+            if (indexes.compareAndSet(TAIL, pos, pos + n)) {
+                break;
+            }
+        }
+        Iterator<? extends E> it = c.iterator();
+        for (int i = 0; i < n; i++) {
+            long slot = pos + i;
+            int index = (int) slot & mask;
+            //队首已经越过了这个槽位，但消费者可能还没来得及释放序号，稍等即可
+            while (sequences.get(index) != slot) {
+                Thread.yield();
+            }
+            items.lazySet(index, it.next());
+            sequences.set(index, slot + 1);
+        }
+        signalNotEmpty(n);
+        return n;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = indexes.get(HEAD);
+        for (;;) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (indexes.compareAndSet(HEAD, pos, pos + 1)) {
+                    Object result = items.getAndSet(index, null);
+                    //释放槽位给下一轮的生产者
+                    sequences.set(index, pos + mask + 1);
+                    signalNotFull();
+                    if (result != TOMBSTONE) {
+                        return (E) result;
+                    }
+                    //被remove(Object)移除的元素，跳过
+                }
+                pos = indexes.get(HEAD);
+            } else if (dif < 0) {
+                //槽位还没有被生产者发布，队列为空
+                return null;
+            } else {
+                pos = indexes.get(HEAD);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        for (;;) {
+            long pos = indexes.get(HEAD);
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif < 0) {
+                return null;
+            }
+            if (dif == 0) {
+                Object result = items.get(index);
+                if (result == TOMBSTONE) {
+                    //队首是墓碑时顺手消费掉，继续看下一个
+                    if (indexes.compareAndSet(HEAD, pos, pos + 1)) {
+                        items.set(index, null);
+                        sequences.set(index, pos + mask + 1);
+                        signalNotFull();
+                    }
+                    continue;
+                }
+                //队首没有被其他消费者移动过，读到的元素才有效
+                if (result != null && indexes.get(HEAD) == pos) {
+                    return (E) result;
+                }
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E result = spinPoll();
+        if (result != null) {
+            return result;
+        }
+        waitLock.lockInterruptibly();
+        try {
+            waitingConsumers++;
+            try {
+                //先登记等待者再检查队列，保证不会错过生产者的唤醒
+                while ((result = poll()) == null) {
+                    notEmptyCondition.await();
+                }
+            } finally {
+                waitingConsumers--;
+            }
+        } finally {
+            waitLock.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if(null == e){
+            throw new NullPointerException();
+        }
+        if (spinOffer(e)) {
+            return;
+        }
+        waitLock.lockInterruptibly();
+        try {
+            waitingProducers++;
+            try {
+                while (!offer(e)) {
+                    notFullCondition.await();
+                }
+            } finally {
+                waitingProducers--;
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if(null == e){
+            return false;
+        }
+        if (spinOffer(e)) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        try {
+            waitingProducers++;
+            try {
+                while (!offer(e)) {
+                    if (nanos <= 0L) {
+                        return false;
+                    }
+                    nanos = notFullCondition.awaitNanos(nanos);
+                }
+                return true;
+            } finally {
+                waitingProducers--;
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E result = spinPoll();
+        if (result != null) {
+            return result;
+        }
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        try {
+            waitingConsumers++;
+            try {
+                while ((result = poll()) == null) {
+                    if (nanos <= 0L) {
+                        return null;
+                    }
+                    nanos = notEmptyCondition.awaitNanos(nanos);
+                }
+                return result;
+            } finally {
+                waitingConsumers--;
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * 批量出队：从队首开始数出连续已发布的槽位(不超过maxElements个)，一次CAS把队首移过这些槽位，再逐个读取并释放
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+        if(maxElements <= 0){
+            return 0;
+        }
+        long pos;
+        int n;
+        for (;;) {
+            pos = indexes.get(HEAD);
+            n = 0;
+            while (n < maxElements && n < items.length()
+                    && sequences.get((int) (pos + n) & mask) == pos + n + 1) {
+                n++;
+            }
+            if (n == 0) {
+                if (sequences.get((int) pos & mask) - (pos + 1) < 0) {
+                    return 0;
+                }
+                //队首被其他消费者移动了，重新读取
+                continue;
+            }
+            if (indexes.compareAndSet(HEAD, pos, pos + n)) {
+                break;
+            }
+        }
+        int drained = 0;
+        for (int i = 0; i < n; i++) {
+            long slot = pos + i;
+            int index = (int) slot & mask;
+            Object x = items.getAndSet(index, null);
+            sequences.set(index, slot + mask + 1);
+            if (x != TOMBSTONE) {
+                c.add((E) x);
+                drained++;
+            }
+        }
+        signalNotFull(n);
+        return drained;
+    }
+
+    @Override
+    public int pollBatch(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+        if(maxElements <= 0){
+            return 0;
+        }
+        int n = drainTo(c, maxElements);
+        if (n > 0) {
+            return n;
+        }
+        E first = poll(timeout, unit);
+        if (null == first) {
+            return 0;
+        }
+        c.add(first);
+        return 1 + drainTo(c, maxElements - 1);
+    }
+
+    @Override
+    public int size() {
+        for (;;) {
+            long head = indexes.get(HEAD);
+            long tail = indexes.get(TAIL);
+            if (indexes.get(HEAD) == head) {
+                long size = tail - head;
+                return (int) Math.max(0L, Math.min(size, items.length()));
+            }
+        }
+    }
+
+    @Override
+    public int length() {
+        return items.length();
+    }
+
+    /**
+     * park之前先自旋尝试出队，大部分情况下生产者很快就会跟上
+     * @title spinPoll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E
+     */
+    private E spinPoll() {
+        for (int i = 0; i < SPINS; i++) {
+            E result = poll();
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+    /**
+     * park之前先自旋尝试入队
+     * @param e-元素
+     * @title spinOffer
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    private boolean spinOffer(E e) {
+        for (int i = 0; i < SPINS; i++) {
+            if (offer(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * 有消费者在等待时才加锁唤醒，没有等待者时入队不碰锁
+     * @title signalNotEmpty
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void signalNotEmpty() {
+        signalNotEmpty(1);
+    }
+    /**
+     * 批量入队后最多唤醒n个等待的消费者
+     * @param n-入队的元素个数
+     * @title signalNotEmpty
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void signalNotEmpty(int n) {
+        if (waitingConsumers > 0) {
+            waitLock.lock();
+            try {
+                for (int k = 0; k < n && waitLock.hasWaiters(notEmptyCondition); k++) {
+                    notEmptyCondition.signal();
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+    /**
+     * 有生产者在等待时才加锁唤醒，没有等待者时出队不碰锁
+     * @title signalNotFull
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void signalNotFull() {
+        signalNotFull(1);
+    }
+    /**
+     * 批量出队后最多唤醒n个等待的生产者
+     * @param n-出队的元素个数
+     * @title signalNotFull
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void signalNotFull(int n) {
+        if (waitingProducers > 0) {
+            waitLock.lock();
+            try {
+                for (int k = 0; k < n && waitLock.hasWaiters(notFullCondition); k++) {
+                    notFullCondition.signal();
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+}
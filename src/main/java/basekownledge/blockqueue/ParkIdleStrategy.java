@@ -0,0 +1,16 @@
+package basekownledge.blockqueue;
+
+/**
+ * 直接阻塞策略：不空转，立即在队列上阻塞等待生产者唤醒(线程池默认的行为)
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title ParkIdleStrategy
+ * @date 2026/10/17
+ */
+public class ParkIdleStrategy implements IdleStrategy {
+
+    @Override
+    public boolean idle(int attempt) {
+        return false;
+    }
+}
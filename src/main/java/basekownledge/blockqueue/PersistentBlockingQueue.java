@@ -0,0 +1,672 @@
+package basekownledge.blockqueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 持久化的字节数组阻塞队列
+ * 元素顺序追加到内存映射的段文件中，记录格式为「4字节长度 + 4字节CRC32 + 数据」，段写满时写入段结束标记并滚动到新段，
+ * 长度字段存的是数据长度加1，0只表示没写完的记录，空数组也能作为元素正常恢复；
+ * 队首位置(段号+偏移)写入单独映射的检查点文件，读完的段文件直接删除。
+ * 刷盘按固定周期由后台线程批量调用force，而不是每次写入都刷盘，所以进程崩溃时最多重放最近一个周期内已经出队的元素(至少一次)，
+ * 操作系统没有崩溃时映射内存中的数据不会丢失。
+ * 启动时做恢复：按检查点定位队首(检查点损坏则从最早的段开始)，逐条校验CRC统计元素个数，最后一个段中第一条无效记录的位置就是队尾，
+ * 队尾之后的残留数据清零，避免之后写入的记录和崩溃前的半条记录拼成一条「有效」记录。
+ * pollView返回直接指向映射内存的只读ByteBuffer，不拷贝数据；段文件不复用，删除后映射随ByteBuffer一起被GC回收，视图一直有效。
+ * 容量按段文件个数限制，不按元素个数，length()返回Integer.MAX_VALUE；remove(Object)不支持从中间移除，始终返回false。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title PersistentBlockingQueue
+ * @date 2026/10/17
+ */
+public class PersistentBlockingQueue implements BlockingQueue<byte[]> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentBlockingQueue.class);
+    /**
+     * 默认段文件大小64MB
+     */
+    private static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    /**
+     * 默认最多16个段文件
+     */
+    private static final int DEFAULT_MAX_SEGMENTS = 16;
+    /**
+     * 默认每100ms刷盘一次
+     */
+    private static final long DEFAULT_FORCE_INTERVAL_MILLIS = 100;
+    /**
+     * 记录头：长度+CRC32
+     */
+    private static final int RECORD_HEADER_BYTES = 8;
+    /**
+     * 长度字段存数据长度加1，0留给没写完的记录
+     */
+    private static final int LENGTH_BIAS = 1;
+    /**
+     * 段结束标记(写在长度的位置)
+     */
+    private static final int END_OF_SEGMENT = -1;
+    /**
+     * 段文件后缀
+     */
+    private static final String SEGMENT_SUFFIX = ".seg";
+    /**
+     * 检查点文件名
+     */
+    private static final String CHECKPOINT_FILE = "head.ckpt";
+    /**
+     * 检查点：8字节段号 + 4字节偏移 + 4字节CRC32
+     */
+    private static final int CHECKPOINT_BYTES = 16;
+    /**
+     * 段文件目录
+     */
+    private final File directory;
+    /**
+     * 新建段文件的大小
+     */
+    private final int segmentBytes;
+    /**
+     * 段文件个数上限
+     */
+    private final int maxSegments;
+    /**
+     * 段文件，第一个是读段，最后一个是写段
+     */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    /**
+     * 读段中的队首偏移
+     */
+    private int readPosition;
+    /**
+     * 队列元素个数
+     */
+    private volatile int count;
+    /**
+     * 映射的检查点
+     */
+    private final MappedByteBuffer checkpoint;
+    /**
+     * 刷盘线程，刷盘周期<=0时为null
+     */
+    private final Thread flusher;
+    /**
+     * 是否已关闭
+     */
+    private volatile boolean closed;
+    /**
+     * 锁
+     */
+    private final ReentrantLock reentrantLock;
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition;
+    /**
+     * 队列未满条件
+     */
+    private final Condition notFullCondition;
+
+    /**
+     * 构造函数，打开目录中已有的队列并恢复
+     * @param directory-段文件目录
+     */
+    public PersistentBlockingQueue(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS, DEFAULT_FORCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    /**
+     * 构造函数，打开目录中已有的队列并恢复
+     * @param directory-段文件目录
+     * @param segmentBytes-段文件大小
+     * @param maxSegments-段文件个数上限，写满后队列已满
+     * @param forceInterval-刷盘周期，<=0表示不启动刷盘线程，只在调用flush/close时刷盘
+     * @param unit-时间单位
+     */
+    public PersistentBlockingQueue(File directory, int segmentBytes, int maxSegments, long forceInterval, TimeUnit unit) throws IOException {
+        if (segmentBytes <= RECORD_HEADER_BYTES || maxSegments <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (null == directory) {
+            throw new NullPointerException();
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("段文件目录创建失败:" + directory);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        reentrantLock = new ReentrantLock();
+        notEmptyCondition = reentrantLock.newCondition();
+        notFullCondition = reentrantLock.newCondition();
+        checkpoint = map(new File(directory, CHECKPOINT_FILE), CHECKPOINT_BYTES);
+        recover();
+        if (forceInterval > 0) {
+            long intervalNanos = unit.toNanos(forceInterval);
+            flusher = new Thread(() -> {
+                while (!closed) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(intervalNanos);
+                    } catch (InterruptedException e) {
+                        //close()打断睡眠，由close()做最后一次刷盘
+                        return;
+                    }
+                    flush();
+                }
+            }, "persistent-queue-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public boolean add(byte[] e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if (null != poll()) {
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+    /**
+     * 日志结构的队列不支持从中间移除
+     */
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean offer(byte[] e) {
+        if (null == e) {
+            return false;
+        }
+        int crc = crc(e);
+        reentrantLock.lock();
+        try {
+            return append(e, crc);
+        } catch (IOException ex) {
+            LOGGER.error("段文件创建失败，按队列已满处理,directory:{}", directory, ex);
+            return false;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public byte[] poll() {
+        return toBytes(pollView());
+    }
+    /**
+     * 移除队首元素，返回直接指向映射内存的只读视图(不拷贝)，队列为空时返回null
+     * @title pollView
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ByteBuffer
+     */
+    public ByteBuffer pollView() {
+        reentrantLock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 移除队首元素，返回直接指向映射内存的只读视图(不拷贝)，若队列为空，则等待timeout指定的时间
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @title pollView
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ByteBuffer 超时返回null
+     */
+    public ByteBuffer pollView(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public byte[] peek() {
+        ByteBuffer view;
+        reentrantLock.lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            view = recordView(skipFinishedSegments(), readPosition);
+        } finally {
+            reentrantLock.unlock();
+        }
+        return toBytes(view);
+    }
+
+    @Override
+    public byte[] take() throws InterruptedException {
+        ByteBuffer view;
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmptyCondition.await();
+            }
+            view = dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+        return toBytes(view);
+    }
+
+    @Override
+    public void put(byte[] e) throws InterruptedException {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        if (!offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException("队列已满!");
+        }
+    }
+
+    @Override
+    public boolean offer(byte[] e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) {
+            return false;
+        }
+        int crc = crc(e);
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (!append(e, crc)) {
+                if (nanos <= 0L || closed) {
+                    return false;
+                }
+                nanos = notFullCondition.awaitNanos(nanos);
+            }
+            return true;
+        } catch (IOException ex) {
+            throw new IllegalStateException("段文件创建失败!", ex);
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return toBytes(pollView(timeout, unit));
+    }
+
+    @Override
+    public int drainTo(Collection<? super byte[]> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        List<ByteBuffer> views;
+        reentrantLock.lock();
+        try {
+            int n = Math.min(maxElements, count);
+            if (n == 0) {
+                return 0;
+            }
+            views = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                views.add(dequeue());
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        //拷贝在锁外进行
+        for (ByteBuffer view : views) {
+            c.add(toBytes(view));
+        }
+        return views.size();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int length() {
+        return Integer.MAX_VALUE;
+    }
+    /**
+     * 把已经写入的数据和检查点刷到磁盘
+     * @title flush
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void flush() {
+        List<Segment> dirty = new ArrayList<>(2);
+        reentrantLock.lock();
+        try {
+            for (Segment s : segments) {
+                if (s.dirty) {
+                    s.dirty = false;
+                    dirty.add(s);
+                }
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        //force可能耗时几毫秒，在锁外进行，不阻塞读写
+        for (Segment s : dirty) {
+            s.buffer.force();
+        }
+        checkpoint.force();
+    }
+    /**
+     * 停止刷盘线程并做最后一次刷盘，之后的入队都会失败
+     * @title close
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void close() {
+        closed = true;
+        if (null != flusher) {
+            flusher.interrupt();
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        reentrantLock.lock();
+        try {
+            notFullCondition.signalAll();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 追加一条记录，写段放不下时写入段结束标记并滚动到新段(调用方必须持有锁)
+     * @param e-数据
+     * @param crc-数据的CRC32
+     * @title append
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 已关闭或者段文件个数到了上限时返回false
+     */
+    private boolean append(byte[] e, int crc) throws IOException {
+        if (closed) {
+            return false;
+        }
+        int recordBytes = RECORD_HEADER_BYTES + e.length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("元素超过段文件大小!");
+        }
+        Segment tail = segments.peekLast();
+        if (tail.writePosition + recordBytes > tail.size) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            if (tail.writePosition + 4 <= tail.size) {
+                tail.buffer.putInt(tail.writePosition, END_OF_SEGMENT);
+            }
+            tail.writePosition = tail.size;
+            tail.dirty = true;
+            tail = createSegment(tail.id + 1);
+            segments.addLast(tail);
+        }
+        int position = tail.writePosition;
+        tail.writer.position(position + RECORD_HEADER_BYTES);
+        tail.writer.put(e);
+        tail.buffer.putInt(position + 4, crc);
+        //长度最后写，没写完的记录长度字段为0，空数组的长度字段为1
+        tail.buffer.putInt(position, e.length + LENGTH_BIAS);
+        tail.writePosition = position + recordBytes;
+        tail.dirty = true;
+        count++;
+        notEmptyCondition.signal();
+        return true;
+    }
+    /**
+     * 移除队首记录并推进检查点(调用方必须持有锁并且保证队列不为空)
+     * @title dequeue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ByteBuffer 记录数据的只读视图
+     */
+    private ByteBuffer dequeue() {
+        Segment head = skipFinishedSegments();
+        ByteBuffer view = recordView(head, readPosition);
+        readPosition += RECORD_HEADER_BYTES + view.remaining();
+        count--;
+        writeCheckpoint(head.id, readPosition);
+        return view;
+    }
+    /**
+     * 读段读完(遇到段结束标记或者剩余空间放不下记录头)时删除读段，返回当前读段(调用方必须持有锁并且保证队列不为空)
+     * @title skipFinishedSegments
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Segment
+     */
+    private Segment skipFinishedSegments() {
+        Segment head = segments.peekFirst();
+        while (readPosition + RECORD_HEADER_BYTES > head.size || head.buffer.getInt(readPosition) == END_OF_SEGMENT) {
+            //队列不为空，说明后面还有段
+            segments.pollFirst();
+            head.delete();
+            head = segments.peekFirst();
+            readPosition = 0;
+            writeCheckpoint(head.id, 0);
+            notFullCondition.signal();
+        }
+        return head;
+    }
+
+    private static ByteBuffer recordView(Segment segment, int position) {
+        int length = segment.buffer.getInt(position) - LENGTH_BIAS;
+        ByteBuffer view = segment.buffer.duplicate();
+        view.position(position + RECORD_HEADER_BYTES);
+        view.limit(position + RECORD_HEADER_BYTES + length);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    private void writeCheckpoint(long segmentId, int position) {
+        checkpoint.putLong(0, segmentId);
+        checkpoint.putInt(8, position);
+        CRC32 crc32 = new CRC32();
+        for (int i = 0; i < 12; i++) {
+            crc32.update(checkpoint.get(i));
+        }
+        checkpoint.putInt(12, (int) crc32.getValue());
+    }
+    /**
+     * 恢复：按检查点定位队首，校验记录统计元素个数并确定队尾
+     * @title recover
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void recover() throws IOException {
+        long headId = -1;
+        int headPosition = 0;
+        CRC32 crc32 = new CRC32();
+        for (int i = 0; i < 12; i++) {
+            crc32.update(checkpoint.get(i));
+        }
+        if (checkpoint.getInt(12) == (int) crc32.getValue()) {
+            headId = checkpoint.getLong(0);
+            headPosition = checkpoint.getInt(8);
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        long[] ids = new long[null == files ? 0 : files.length];
+        for (int i = 0; i < ids.length; i++) {
+            String name = files[i].getName();
+            ids[i] = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        }
+        Arrays.sort(ids);
+        for (long id : ids) {
+            File file = segmentFile(id);
+            if (id < headId) {
+                //检查点之前的段已经读完，删除时崩溃留下的
+                if (!file.delete()) {
+                    LOGGER.warn("段文件删除失败:{}", file);
+                }
+                continue;
+            }
+            segments.addLast(new Segment(id, file, (int) file.length()));
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(createSegment(Math.max(headId, 0L)));
+        }
+        Segment first = segments.peekFirst();
+        readPosition = first.id == headId ? headPosition : 0;
+        if (readPosition < 0 || readPosition > first.size) {
+            readPosition = 0;
+        }
+        int total = 0;
+        Segment last = segments.peekLast();
+        for (Segment s : segments) {
+            int position = s == first ? readPosition : 0;
+            for (;;) {
+                if (position + RECORD_HEADER_BYTES > s.size) {
+                    break;
+                }
+                int stored = s.buffer.getInt(position);
+                if (stored == END_OF_SEGMENT) {
+                    break;
+                }
+                int length = stored - LENGTH_BIAS;
+                if (stored <= 0 || length > s.size - position - RECORD_HEADER_BYTES
+                        || s.buffer.getInt(position + 4) != crc(recordView(s, position))) {
+                    if (s != last) {
+                        //中间段损坏，后面的记录无法定位，标记为段结束
+                        LOGGER.warn("段文件{}在偏移{}处损坏，丢弃该段剩余的记录", s.file, position);
+                        if (position + 4 <= s.size) {
+                            s.buffer.putInt(position, END_OF_SEGMENT);
+                        }
+                    }
+                    break;
+                }
+                total++;
+                position += RECORD_HEADER_BYTES + length;
+            }
+            if (s == last) {
+                s.writePosition = position;
+                //清除队尾之后的残留数据
+                for (int i = position; i < s.size; i++) {
+                    s.buffer.put(i, (byte) 0);
+                }
+            } else {
+                s.writePosition = s.size;
+            }
+        }
+        count = total;
+        writeCheckpoint(first.id, readPosition);
+        LOGGER.info("持久化队列恢复完成,directory:{},段文件:{},元素:{}", directory, segments.size(), total);
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        return new Segment(id, segmentFile(id), segmentBytes);
+    }
+
+    private File segmentFile(long id) {
+        return new File(directory, String.format("%019d", id) + SEGMENT_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        //映射建立后就可以关闭文件，映射一直有效
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int crc(byte[] e) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(e, 0, e.length);
+        return (int) crc32.getValue();
+    }
+
+    private static int crc(ByteBuffer view) {
+        byte[] bytes = toBytes(view);
+        return crc(bytes);
+    }
+
+    private static byte[] toBytes(ByteBuffer view) {
+        if (null == view) {
+            return null;
+        }
+        byte[] bytes = new byte[view.remaining()];
+        view.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 内存映射的段文件
+     */
+    private static final class Segment {
+
+        final long id;
+
+        final File file;
+
+        final int size;
+
+        final MappedByteBuffer buffer;
+        /**
+         * 写入数据用的游标
+         */
+        final ByteBuffer writer;
+        /**
+         * 下一条记录的写入位置
+         */
+        int writePosition;
+        /**
+         * 上次刷盘之后是否有写入
+         */
+        boolean dirty;
+
+        Segment(long id, File file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.size = size;
+            this.buffer = map(file, size);
+            this.writer = buffer.duplicate();
+        }
+
+        void delete() {
+            if (!file.delete()) {
+                LOGGER.warn("段文件删除失败:{}", file);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package basekownledge.blockqueue;
+
+/**
+ * 带优先级和截止时间的元素，PriorityDeadlineBlockingQueue按「优先级 -> 截止时间 -> 入队顺序」出队
+ * 没有实现该接口的元素按DEFAULT_PRIORITY、没有截止时间处理
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title Prioritized
+ * @date 2026/10/17
+ */
+public interface Prioritized {
+    /**
+     * 默认优先级
+     */
+    int DEFAULT_PRIORITY = 0;
+    /**
+     * 没有截止时间
+     */
+    long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * 优先级，数值越小越先出队
+     * @title getPriority
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    int getPriority();
+    /**
+     * 截止时间(System.nanoTime()的绝对值)，同一优先级内截止时间越早越先出队，过了截止时间的元素出队时直接丢弃
+     * @title getDeadlineNanos
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 没有截止时间返回NO_DEADLINE
+     */
+    long getDeadlineNanos();
+    /**
+     * 元素因为过了截止时间被队列丢弃时回调(在出队线程中、队列释放锁之后调用，抛出的异常只记录日志)
+     * @title onExpired
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    default void onExpired() {
+    }
+}
@@ -0,0 +1,474 @@
+package basekownledge.blockqueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界的优先级/截止时间阻塞队列
+ * 按「优先级(小的先出) -> 截止时间(早的先出，EDF) -> 入队顺序(FIFO)」出队，没有实现Prioritized的元素按默认优先级、无截止时间处理，
+ * 所以全部是普通元素时退化为FIFO队列。用二叉堆实现，元素和排序键放在平行数组中，入队/出队O(log n)且不分配对象。
+ * 已经过了截止时间的元素在到达堆顶时直接丢弃，不会交给消费者，也不占用后面元素的等待时间；
+ * 丢弃的元素在释放锁之后回调Prioritized.onExpired，回调抛出的异常只记录日志，不会影响出队线程。
+ * 作为线程池的taskQueue时，交互请求用更小的优先级或更早的截止时间提交，就不会排在批量任务后面。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title PriorityDeadlineBlockingQueue
+ * @date 2026/10/17
+ */
+public class PriorityDeadlineBlockingQueue<E> implements BlockingQueue<E> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriorityDeadlineBlockingQueue.class);
+    /**
+     * 堆中的元素
+     */
+    private final Object[] items;
+    /**
+     * 与items对应的优先级
+     */
+    private final int[] priorities;
+    /**
+     * 与items对应的截止时间
+     */
+    private final long[] deadlines;
+    /**
+     * 与items对应的入队序号(同优先级同截止时间时保证FIFO)
+     */
+    private final long[] sequences;
+    /**
+     * 队列元素个数
+     */
+    private volatile int count;
+    /**
+     * 下一个入队序号
+     */
+    private long nextSequence;
+    /**
+     * 因为过期被丢弃的元素个数
+     */
+    private volatile long expiredCount;
+    /**
+     * 已经丢弃、还没有回调onExpired的元素(持有锁时读写，释放锁之前取走)
+     */
+    private List<Prioritized> expiredItems;
+    /**
+     * 锁
+     */
+    private final ReentrantLock reentrantLock;
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition;
+    /**
+     * 队列未满条件
+     */
+    private final Condition notFullCondition;
+
+    public PriorityDeadlineBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        items = new Object[capacity];
+        priorities = new int[capacity];
+        deadlines = new long[capacity];
+        sequences = new long[capacity];
+        reentrantLock = new ReentrantLock();
+        notEmptyCondition = reentrantLock.newCondition();
+        notFullCondition = reentrantLock.newCondition();
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if (null != poll()) {
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (null == o) {
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                if (o.equals(items[i])) {
+                    removeAt(i);
+                    notFullCondition.signal();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            if (count == items.length) {
+                return false;
+            }
+            insert(e);
+            notEmptyCondition.signal();
+            return true;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        for (E e : c) {
+            if (null == e) {
+                throw new NullPointerException();
+            }
+        }
+        reentrantLock.lock();
+        try {
+            int n = Math.min(c.size(), items.length - count);
+            int i = 0;
+            for (E e : c) {
+                if (i == n) {
+                    break;
+                }
+                insert(e);
+                i++;
+            }
+            for (int k = 0; k < n && reentrantLock.hasWaiters(notEmptyCondition); k++) {
+                notEmptyCondition.signal();
+            }
+            return n;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        reentrantLock.lock();
+        try {
+            return purgeExpired() ? dequeue() : null;
+        } finally {
+            List<Prioritized> expired = takeExpired();
+            reentrantLock.unlock();
+            notifyExpired(expired);
+        }
+    }
+
+    @Override
+    public E peek() {
+        reentrantLock.lock();
+        try {
+            return purgeExpired() ? (E) items[0] : null;
+        } finally {
+            List<Prioritized> expired = takeExpired();
+            reentrantLock.unlock();
+            notifyExpired(expired);
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        reentrantLock.lockInterruptibly();
+        try {
+            while (!purgeExpired()) {
+                notEmptyCondition.await();
+            }
+            return dequeue();
+        } finally {
+            List<Prioritized> expired = takeExpired();
+            reentrantLock.unlock();
+            notifyExpired(expired);
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                notFullCondition.await();
+            }
+            insert(e);
+            notEmptyCondition.signal();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) {
+            return false;
+        }
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFullCondition.awaitNanos(nanos);
+            }
+            insert(e);
+            notEmptyCondition.signal();
+            return true;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            while (!purgeExpired()) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            List<Prioritized> expired = takeExpired();
+            reentrantLock.unlock();
+            notifyExpired(expired);
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        reentrantLock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && purgeExpired()) {
+                c.add(dequeue());
+                n++;
+            }
+            return n;
+        } finally {
+            List<Prioritized> expired = takeExpired();
+            reentrantLock.unlock();
+            notifyExpired(expired);
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int length() {
+        return items.length;
+    }
+    /**
+     * 因为过了截止时间被丢弃的元素个数
+     * @title getExpiredCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+    /**
+     * 丢弃堆顶已经过期的元素(调用方必须持有锁)，丢弃的元素暂存起来，由调用方释放锁之后回调
+     * @title purgeExpired
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 丢弃之后队列是否还有元素
+     */
+    private boolean purgeExpired() {
+        if (count == 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        while (count > 0 && deadlines[0] != Prioritized.NO_DEADLINE && now - deadlines[0] > 0) {
+            if (null == expiredItems) {
+                expiredItems = new ArrayList<>();
+            }
+            expiredItems.add((Prioritized) items[0]);
+            removeAt(0);
+            expiredCount++;
+            notFullCondition.signal();
+        }
+        return count > 0;
+    }
+    /**
+     * 取走暂存的过期元素(调用方必须持有锁)
+     * @title takeExpired
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return List<Prioritized> 没有过期元素时返回null
+     */
+    private List<Prioritized> takeExpired() {
+        List<Prioritized> expired = expiredItems;
+        expiredItems = null;
+        return expired;
+    }
+    /**
+     * 回调过期元素的onExpired(调用方不能持有锁)，单个回调抛出的异常记录日志后忽略，
+     * 否则异常会从take/poll中抛出，作为线程池的任务队列时会导致worker退出
+     * @param expired-过期元素，可以为null
+     * @title notifyExpired
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private static void notifyExpired(List<Prioritized> expired) {
+        if (null == expired) {
+            return;
+        }
+        for (Prioritized e : expired) {
+            try {
+                e.onExpired();
+            } catch (RuntimeException ex) {
+                LOGGER.warn("过期元素回调onExpired失败:{}", e, ex);
+            }
+        }
+    }
+    /**
+     * 入队并上浮(调用方必须持有锁并且保证队列未满)
+     * @param e-元素
+     * @title insert
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void insert(E e) {
+        int priority = Prioritized.DEFAULT_PRIORITY;
+        long deadline = Prioritized.NO_DEADLINE;
+        if (e instanceof Prioritized) {
+            priority = ((Prioritized) e).getPriority();
+            deadline = ((Prioritized) e).getDeadlineNanos();
+        }
+        int k = count;
+        count = k + 1;
+        siftUp(k, e, priority, deadline, nextSequence++);
+    }
+    /**
+     * 取出堆顶(调用方必须持有锁并且保证队列不为空)
+     * @title dequeue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E
+     */
+    private E dequeue() {
+        E result = (E) items[0];
+        removeAt(0);
+        notFullCondition.signal();
+        return result;
+    }
+    /**
+     * 移除下标i的元素，用最后一个元素填补后下沉或上浮(调用方必须持有锁)
+     * @param i-下标
+     * @title removeAt
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void removeAt(int i) {
+        int last = --count;
+        Object moved = items[last];
+        int priority = priorities[last];
+        long deadline = deadlines[last];
+        long sequence = sequences[last];
+        items[last] = null;
+        if (i == last) {
+            return;
+        }
+        siftDown(i, moved, priority, deadline, sequence);
+        if (items[i] == moved) {
+            siftUp(i, moved, priority, deadline, sequence);
+        }
+    }
+
+    private void siftUp(int k, Object e, int priority, long deadline, long sequence) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (!before(priority, deadline, sequence, parent)) {
+                break;
+            }
+            move(parent, k);
+            k = parent;
+        }
+        set(k, e, priority, deadline, sequence);
+    }
+
+    private void siftDown(int k, Object e, int priority, long deadline, long sequence) {
+        int half = count >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int right = child + 1;
+            if (right < count && before(priorities[right], deadlines[right], sequences[right], child)) {
+                child = right;
+            }
+            if (!before(priorities[child], deadlines[child], sequences[child], priority, deadline, sequence)) {
+                break;
+            }
+            move(child, k);
+            k = child;
+        }
+        set(k, e, priority, deadline, sequence);
+    }
+    /**
+     * 排序键(priority, deadline, sequence)是否排在下标j的元素之前
+     */
+    private boolean before(int priority, long deadline, long sequence, int j) {
+        return before(priority, deadline, sequence, priorities[j], deadlines[j], sequences[j]);
+    }
+
+    private static boolean before(int p1, long d1, long s1, int p2, long d2, long s2) {
+        if (p1 != p2) {
+            return p1 < p2;
+        }
+        if (d1 != d2) {
+            //截止时间是nanoTime的值，按差值比较才不受溢出影响；NO_DEADLINE排在所有截止时间之后
+            if (d1 == Prioritized.NO_DEADLINE || d2 == Prioritized.NO_DEADLINE) {
+                return d2 == Prioritized.NO_DEADLINE;
+            }
+            return d1 - d2 < 0;
+        }
+        return s1 < s2;
+    }
+
+    private void move(int from, int to) {
+        set(to, items[from], priorities[from], deadlines[from], sequences[from]);
+    }
+
+    private void set(int k, Object e, int priority, long deadline, long sequence) {
+        items[k] = e;
+        priorities[k] = priority;
+        deadlines[k] = deadline;
+        sequences[k] = sequence;
+    }
+}
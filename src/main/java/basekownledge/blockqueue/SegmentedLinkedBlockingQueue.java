@@ -0,0 +1,577 @@
+package basekownledge.blockqueue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 双锁分段链表阻塞队列
+ * 入队只持有putLock并且只操作队尾，出队只持有takeLock并且只操作队首，生产者和消费者可以同时进行；
+ * 两端通过原子计数count交接：生产者先写元素再增加计数，消费者先看到计数再读元素。
+ * 元素存放在固定大小的数组段中，段与段之间用链表连接，消费完的段放回备用池供生产者复用，稳定运行时不为每个元素分配节点。
+ * remove(Object)同时持有两把锁，把元素替换成墓碑(不计入count)，出队时跳过。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title SegmentedLinkedBlockingQueue
+ * @date 2026/10/17
+ */
+public class SegmentedLinkedBlockingQueue<E> implements BlockingQueue<E> {
+    /**
+     * 每段的槽数
+     */
+    private static final int SEGMENT_SIZE = 64;
+    /**
+     * 备用段的个数上限
+     */
+    private static final int MAX_SPARE_SEGMENTS = 4;
+    /**
+     * 被remove(Object)移除的元素留下的墓碑
+     */
+    private static final Object REMOVED = new Object();
+    /**
+     * 容量
+     */
+    private final int capacity;
+    /**
+     * 队列元素个数(不包括墓碑)
+     */
+    private final AtomicInteger count = new AtomicInteger();
+    /**
+     * 队首段(只在takeLock下访问)
+     */
+    private Segment head;
+    /**
+     * 队尾段(只在putLock下访问)
+     */
+    private Segment tail;
+    /**
+     * 消费完的备用段，消费者放入、生产者取出，各个槽用CAS交接
+     */
+    private final AtomicReferenceArray<Segment> spares = new AtomicReferenceArray<>(MAX_SPARE_SEGMENTS);
+    /**
+     * 出队锁
+     */
+    private final ReentrantLock takeLock = new ReentrantLock();
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition = takeLock.newCondition();
+    /**
+     * 入队锁
+     */
+    private final ReentrantLock putLock = new ReentrantLock();
+    /**
+     * 队列未满条件
+     */
+    private final Condition notFullCondition = putLock.newCondition();
+
+    public SegmentedLinkedBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public SegmentedLinkedBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        head = tail = new Segment();
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if (null != poll()) {
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (null == o) {
+            return false;
+        }
+        fullyLock();
+        try {
+            for (Segment s = head; s != null; s = s.next) {
+                int end = s == tail ? s.putIndex : SEGMENT_SIZE;
+                for (int i = s.takeIndex; i < end; i++) {
+                    if (o.equals(s.items[i])) {
+                        s.items[i] = REMOVED;
+                        if (count.getAndDecrement() == capacity) {
+                            notFullCondition.signal();
+                        }
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            fullyUnlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            return false;
+        }
+        if (count.get() == capacity) {
+            return false;
+        }
+        int c = -1;
+        putLock.lock();
+        try {
+            if (count.get() < capacity) {
+                enqueue(e);
+                c = count.getAndIncrement();
+                if (c + 1 < capacity) {
+                    notFullCondition.signal();
+                }
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+        return c >= 0;
+    }
+
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        for (E e : c) {
+            if (null == e) {
+                throw new NullPointerException();
+            }
+        }
+        int n;
+        int before;
+        putLock.lock();
+        try {
+            n = Math.min(c.size(), capacity - count.get());
+            if (n <= 0) {
+                return 0;
+            }
+            int i = 0;
+            for (E e : c) {
+                if (i == n) {
+                    break;
+                }
+                enqueue(e);
+                i++;
+            }
+            before = count.getAndAdd(n);
+            if (before + n < capacity) {
+                notFullCondition.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (before == 0) {
+            //队列从空变为非空，唤醒最多n个消费者
+            takeLock.lock();
+            try {
+                for (int k = 0; k < n && takeLock.hasWaiters(notEmptyCondition); k++) {
+                    notEmptyCondition.signal();
+                }
+            } finally {
+                takeLock.unlock();
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public E poll() {
+        if (count.get() == 0) {
+            return null;
+        }
+        E x = null;
+        int c = -1;
+        takeLock.lock();
+        try {
+            if (count.get() > 0) {
+                x = dequeue();
+                c = count.getAndDecrement();
+                if (c > 1) {
+                    notEmptyCondition.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == capacity) {
+            signalNotFull();
+        }
+        return x;
+    }
+
+    @Override
+    public E peek() {
+        if (count.get() == 0) {
+            return null;
+        }
+        takeLock.lock();
+        try {
+            if (count.get() == 0) {
+                return null;
+            }
+            skipConsumed();
+            return (E) head.items[head.takeIndex];
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E x;
+        int c;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                notEmptyCondition.await();
+            }
+            x = dequeue();
+            c = count.getAndDecrement();
+            if (c > 1) {
+                notEmptyCondition.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == capacity) {
+            signalNotFull();
+        }
+        return x;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        int c;
+        putLock.lockInterruptibly();
+        try {
+            while (count.get() == capacity) {
+                notFullCondition.await();
+            }
+            enqueue(e);
+            c = count.getAndIncrement();
+            if (c + 1 < capacity) {
+                notFullCondition.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) {
+            return false;
+        }
+        long nanos = unit.toNanos(timeout);
+        int c;
+        putLock.lockInterruptibly();
+        try {
+            while (count.get() == capacity) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFullCondition.awaitNanos(nanos);
+            }
+            enqueue(e);
+            c = count.getAndIncrement();
+            if (c + 1 < capacity) {
+                notFullCondition.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        E x;
+        int c;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            x = dequeue();
+            c = count.getAndDecrement();
+            if (c > 1) {
+                notEmptyCondition.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == capacity) {
+            signalNotFull();
+        }
+        return x;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0 || count.get() == 0) {
+            return 0;
+        }
+        int n;
+        int before;
+        takeLock.lock();
+        try {
+            n = Math.min(maxElements, count.get());
+            if (n == 0) {
+                return 0;
+            }
+            for (int i = 0; i < n; i++) {
+                c.add(dequeue());
+            }
+            before = count.getAndAdd(-n);
+            if (before > n) {
+                notEmptyCondition.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (before == capacity) {
+            signalNotFull();
+        }
+        return n;
+    }
+
+    @Override
+    public int pollBatch(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        int n;
+        int before;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0L) {
+                    return 0;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            n = Math.min(maxElements, count.get());
+            for (int i = 0; i < n; i++) {
+                c.add(dequeue());
+            }
+            before = count.getAndAdd(-n);
+            if (before > n) {
+                notEmptyCondition.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (before == capacity) {
+            signalNotFull();
+        }
+        return n;
+    }
+    /**
+     * 空转阶段只读原子计数器判断队列是否为空，不加锁
+     */
+    @Override
+    public E poll(IdleStrategy idleStrategy, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int attempt = 0; ; ) {
+            if (count.get() > 0) {
+                E e = poll();
+                if (null != e) {
+                    return e;
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0L) {
+                return null;
+            }
+            if (!idleStrategy.idle(attempt)) {
+                return poll(nanos, TimeUnit.NANOSECONDS);
+            }
+            if (attempt < Integer.MAX_VALUE) {
+                attempt++;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public int length() {
+        return capacity;
+    }
+    /**
+     * 在队尾写入元素(调用方必须持有putLock并且保证队列未满)，当前段写满时换到新段
+     * @param e-元素
+     * @title enqueue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void enqueue(E e) {
+        Segment t = tail;
+        if (t.putIndex == SEGMENT_SIZE) {
+            Segment s = newSegment();
+            //先链接新段，再由调用方增加计数，消费者看到计数时一定能看到next
+            t.next = s;
+            tail = t = s;
+        }
+        t.items[t.putIndex++] = e;
+    }
+    /**
+     * 从队首取出元素(调用方必须持有takeLock并且保证count > 0)
+     * @title dequeue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E
+     */
+    private E dequeue() {
+        skipConsumed();
+        Segment h = head;
+        E x = (E) h.items[h.takeIndex];
+        h.items[h.takeIndex++] = null;
+        return x;
+    }
+    /**
+     * 跳过已经读完的段和墓碑，结束后head.items[head.takeIndex]是下一个有效元素(调用方必须持有takeLock并且保证count > 0)
+     * @title skipConsumed
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void skipConsumed() {
+        for (;;) {
+            Segment h = head;
+            if (h.takeIndex == SEGMENT_SIZE) {
+                //count > 0说明后面还有元素，生产者一定已经链接了下一段，并且不会再访问这一段
+                head = h.next;
+                recycle(h);
+            } else if (h.items[h.takeIndex] == REMOVED) {
+                h.items[h.takeIndex++] = null;
+            } else {
+                return;
+            }
+        }
+    }
+    /**
+     * 取一个备用段，没有则新建
+     * @title newSegment
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Segment
+     */
+    private Segment newSegment() {
+        for (int i = 0; i < MAX_SPARE_SEGMENTS; i++) {
+            if (spares.get(i) != null) {
+                Segment s = spares.getAndSet(i, null);
+                if (s != null) {
+                    return s;
+                }
+            }
+        }
+        return new Segment();
+    }
+    /**
+     * 回收消费完的段(槽位在出队时已经置空)，备用池满了就交给GC
+     * @param s-段
+     * @title recycle
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void recycle(Segment s) {
+        s.next = null;
+        s.putIndex = 0;
+        s.takeIndex = 0;
+        for (int i = 0; i < MAX_SPARE_SEGMENTS; i++) {
+            if (spares.get(i) == null && spares.compareAndSet(i, null, s)) {
+                return;
+            }
+        }
+    }
+
+    private void signalNotEmpty() {
+        takeLock.lock();
+        try {
+            notEmptyCondition.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    private void signalNotFull() {
+        putLock.lock();
+        try {
+            notFullCondition.signal();
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    private void fullyLock() {
+        putLock.lock();
+        takeLock.lock();
+    }
+
+    private void fullyUnlock() {
+        takeLock.unlock();
+        putLock.unlock();
+    }
+
+    /**
+     * 数组段
+     */
+    private static final class Segment {
+
+        final Object[] items = new Object[SEGMENT_SIZE];
+        /**
+         * 下一个写入位置(只有生产者访问)
+         */
+        int putIndex;
+        /**
+         * 下一个读取位置(只有消费者访问)
+         */
+        int takeIndex;
+
+        Segment next;
+    }
+}
@@ -0,0 +1,677 @@
+package basekownledge.blockqueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 溢出到磁盘的阻塞队列
+ * 内存中是一个有界环形数组，满了之后新元素序列化后顺序追加到内存映射的段文件中，只做顺序读写；
+ * 内存有空位时按写入顺序把磁盘上的元素读回环形数组，读完的段文件删除(最后一个段清空后复用)，整体保持FIFO。
+ * 只要磁盘上还有元素，新元素就必须写盘，所以「磁盘上有元素」时内存一定是满的，出队只需要看内存。
+ * 序列化在锁外完成，读回时只把字节拷进内存，由取出元素的线程在锁外反序列化。
+ * 限制：
+ * 1.溢出的元素必须可以序列化(线程池中的任务本身必须实现Serializable，普通lambda不行)，不能序列化的元素在内存满时按队列已满处理(offer返回false，限时offer和put等到内存有空位并且磁盘读空)；
+ * 2.读回的是反序列化出来的副本，不是原来的对象，remove(Object)只匹配内存中还没有写过盘的元素；
+ * 3.段文件只在本进程内有效，不做持久化，进程重启后不会恢复；删除的段文件要等映射被GC回收后才真正释放磁盘空间。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title SpillingBlockingQueue
+ * @date 2026/10/17
+ */
+public class SpillingBlockingQueue<E> implements BlockingQueue<E> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillingBlockingQueue.class);
+    /**
+     * 默认段文件大小64MB
+     */
+    private static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    /**
+     * 每条记录的长度头
+     */
+    private static final int RECORD_HEADER_BYTES = 4;
+    /**
+     * 内存中的元素(磁盘读回还没有反序列化的元素是Spilled)
+     */
+    private final Object[] items;
+    /**
+     * 内存队首下标
+     */
+    private int takeIndex;
+    /**
+     * 内存队尾下标
+     */
+    private int putIndex;
+    /**
+     * 内存中的元素个数
+     */
+    private int memoryCount;
+    /**
+     * 磁盘上的元素个数
+     */
+    private int spilledCount;
+    /**
+     * 队列元素总个数(内存+磁盘)
+     */
+    private volatile int count;
+    /**
+     * 段文件，第一个是读段，最后一个是写段
+     */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    /**
+     * 段文件目录
+     */
+    private final File directory;
+    /**
+     * 段文件大小
+     */
+    private final int segmentBytes;
+    /**
+     * 段文件占用的总字节数上限
+     */
+    private final long maxSpillBytes;
+    /**
+     * 段文件当前占用的总字节数
+     */
+    private long spillBytes;
+    /**
+     * 溢出到磁盘的元素总数
+     */
+    private volatile long spilledTotal;
+    /**
+     * 序列化失败的次数
+     */
+    private final AtomicLong serializeFailures = new AtomicLong();
+    /**
+     * 锁
+     */
+    private final ReentrantLock reentrantLock;
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition;
+    /**
+     * 队列未满条件(只有磁盘占用也到上限时才会等待)
+     */
+    private final Condition notFullCondition;
+    /**
+     * 内存有空位并且磁盘上没有元素的条件(不能序列化的元素只能等这个条件)
+     */
+    private final Condition memoryFreeCondition;
+
+    /**
+     * 构造函数
+     * @param memoryCapacity-内存中最多保存的元素个数
+     * @param directory-段文件目录
+     */
+    public SpillingBlockingQueue(int memoryCapacity, File directory) {
+        this(memoryCapacity, directory, DEFAULT_SEGMENT_BYTES, Long.MAX_VALUE);
+    }
+    /**
+     * 构造函数
+     * @param memoryCapacity-内存中最多保存的元素个数
+     * @param directory-段文件目录
+     * @param segmentBytes-段文件大小
+     * @param maxSpillBytes-段文件占用的总字节数上限，超过后按队列已满处理
+     */
+    public SpillingBlockingQueue(int memoryCapacity, File directory, int segmentBytes, long maxSpillBytes) {
+        if (memoryCapacity <= 0 || segmentBytes <= RECORD_HEADER_BYTES || maxSpillBytes <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (null == directory) {
+            throw new NullPointerException();
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("段文件目录创建失败:" + directory);
+        }
+        this.items = new Object[memoryCapacity];
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSpillBytes = maxSpillBytes;
+        reentrantLock = new ReentrantLock();
+        notEmptyCondition = reentrantLock.newCondition();
+        notFullCondition = reentrantLock.newCondition();
+        memoryFreeCondition = reentrantLock.newCondition();
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if (null != poll()) {
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (null == o) {
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            int i = takeIndex;
+            for (int k = memoryCount; k > 0; k--) {
+                if (o.equals(items[i])) {
+                    removeAt(i);
+                    return true;
+                }
+                if (++i == items.length) {
+                    i = 0;
+                }
+            }
+            return false;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            if (tryInsertMemory(e)) {
+                return true;
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        byte[] bytes = trySerialize(e);
+        if (null == bytes) {
+            return false;
+        }
+        reentrantLock.lock();
+        try {
+            return tryInsertMemory(e) || spill(bytes);
+        } catch (IOException ex) {
+            LOGGER.error("段文件写入失败，按队列已满处理,directory:{}", directory, ex);
+            return false;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        Object x;
+        reentrantLock.lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            x = dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+        return unwrap(x);
+    }
+
+    @Override
+    public E peek() {
+        Object x;
+        reentrantLock.lock();
+        try {
+            x = count == 0 ? null : items[takeIndex];
+        } finally {
+            reentrantLock.unlock();
+        }
+        return null == x ? null : unwrap(x);
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        Object x;
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmptyCondition.await();
+            }
+            x = dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+        return unwrap(x);
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        if (!offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException("队列已满!");
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) {
+            return false;
+        }
+        long nanos = unit.toNanos(timeout);
+        reentrantLock.lockInterruptibly();
+        try {
+            if (tryInsertMemory(e)) {
+                return true;
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        byte[] bytes = trySerialize(e);
+        reentrantLock.lockInterruptibly();
+        try {
+            if (null == bytes) {
+                //不能序列化，按队列已满处理，等内存腾出空位
+                while (!tryInsertMemory(e)) {
+                    if (nanos <= 0L) {
+                        return false;
+                    }
+                    nanos = memoryFreeCondition.awaitNanos(nanos);
+                }
+                return true;
+            }
+            for (;;) {
+                if (tryInsertMemory(e) || spill(bytes)) {
+                    return true;
+                }
+                //磁盘占用到了上限，等待消费者腾出空间
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFullCondition.awaitNanos(nanos);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("段文件写入失败!", ex);
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        Object x;
+        reentrantLock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmptyCondition.awaitNanos(nanos);
+            }
+            x = dequeue();
+        } finally {
+            reentrantLock.unlock();
+        }
+        return unwrap(x);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        List<Object> raw;
+        reentrantLock.lock();
+        try {
+            int n = Math.min(maxElements, count);
+            if (n == 0) {
+                return 0;
+            }
+            raw = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                raw.add(dequeue());
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        for (Object x : raw) {
+            c.add(unwrap(x));
+        }
+        return raw.size();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+    /**
+     * 内存容量(磁盘部分不计入)
+     */
+    @Override
+    public int length() {
+        return items.length;
+    }
+    /**
+     * 当前在磁盘上的元素个数
+     * @title getSpilledCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getSpilledCount() {
+        reentrantLock.lock();
+        try {
+            return spilledCount;
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 累计溢出到磁盘的元素个数
+     * @title getSpilledTotal
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long getSpilledTotal() {
+        return spilledTotal;
+    }
+    /**
+     * 累计序列化失败(按队列已满处理)的次数
+     * @title getSerializeFailureCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long getSerializeFailureCount() {
+        return serializeFailures.get();
+    }
+    /**
+     * 清空队列并删除所有段文件
+     * @title close
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void close() {
+        reentrantLock.lock();
+        try {
+            for (Segment s; (s = segments.pollFirst()) != null; ) {
+                s.delete();
+            }
+            for (int i = 0; i < items.length; i++) {
+                items[i] = null;
+            }
+            takeIndex = putIndex = memoryCount = spilledCount = count = 0;
+            spillBytes = 0;
+            notFullCondition.signalAll();
+            memoryFreeCondition.signalAll();
+        } finally {
+            reentrantLock.unlock();
+        }
+    }
+    /**
+     * 磁盘上没有元素并且内存未满时放入内存(调用方必须持有锁)
+     * @param e-元素
+     * @title tryInsertMemory
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    private boolean tryInsertMemory(Object e) {
+        if (spilledCount > 0 || memoryCount == items.length) {
+            return false;
+        }
+        insertMemory(e);
+        count++;
+        notEmptyCondition.signal();
+        return true;
+    }
+
+    private void insertMemory(Object e) {
+        items[putIndex] = e;
+        if (++putIndex == items.length) {
+            putIndex = 0;
+        }
+        memoryCount++;
+    }
+    /**
+     * 把序列化后的元素追加到写段，写段放不下时新建段(调用方必须持有锁)
+     * @param bytes-序列化后的元素
+     * @title spill
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 磁盘占用到了上限时返回false
+     */
+    private boolean spill(byte[] bytes) throws IOException {
+        int recordBytes = RECORD_HEADER_BYTES + bytes.length;
+        Segment tail = segments.peekLast();
+        if (null == tail || tail.writer.remaining() < recordBytes) {
+            int size = Math.max(segmentBytes, recordBytes);
+            if (spillBytes + size > maxSpillBytes) {
+                return false;
+            }
+            tail = new Segment(File.createTempFile("spill-", ".seg", directory), size);
+            segments.addLast(tail);
+            spillBytes += size;
+        }
+        tail.writer.putInt(bytes.length);
+        tail.writer.put(bytes);
+        tail.entries++;
+        spilledCount++;
+        count++;
+        spilledTotal++;
+        notEmptyCondition.signal();
+        return true;
+    }
+    /**
+     * 取出内存队首元素，然后用磁盘上的元素补齐内存(调用方必须持有锁并且保证队列不为空)
+     * @title dequeue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Object
+     */
+    private Object dequeue() {
+        Object x = items[takeIndex];
+        items[takeIndex] = null;
+        if (++takeIndex == items.length) {
+            takeIndex = 0;
+        }
+        memoryCount--;
+        count--;
+        refill();
+        notFullCondition.signal();
+        signalMemoryFree();
+        return x;
+    }
+
+    private void removeAt(int removeIndex) {
+        int i = removeIndex;
+        for (;;) {
+            int next = (i + 1 == items.length) ? 0 : i + 1;
+            if (next == putIndex) {
+                items[i] = null;
+                putIndex = i;
+                break;
+            }
+            items[i] = items[next];
+            i = next;
+        }
+        memoryCount--;
+        count--;
+        refill();
+        notFullCondition.signal();
+        signalMemoryFree();
+    }
+    /**
+     * 磁盘上没有元素并且内存有空位时，唤醒一个等待内存的生产者(调用方必须持有锁)
+     * @title signalMemoryFree
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void signalMemoryFree() {
+        if (spilledCount == 0 && memoryCount < items.length) {
+            memoryFreeCondition.signal();
+        }
+    }
+    /**
+     * 按写入顺序把磁盘上的元素读回内存，直到内存满或磁盘读空，读完的段删除(调用方必须持有锁)
+     * @title refill
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void refill() {
+        while (spilledCount > 0 && memoryCount < items.length) {
+            Segment head = segments.peekFirst();
+            if (head.consumed == head.entries) {
+                //还有元素没读，说明后面还有段，这个段不会再被写
+                segments.pollFirst();
+                spillBytes -= head.size;
+                head.delete();
+                continue;
+            }
+            byte[] bytes = new byte[head.reader.getInt()];
+            head.reader.get(bytes);
+            head.consumed++;
+            spilledCount--;
+            insertMemory(new Spilled(bytes));
+        }
+        if (spilledCount == 0 && !segments.isEmpty()) {
+            //磁盘读空，只保留一个段清空后复用
+            while (segments.size() > 1) {
+                Segment s = segments.pollFirst();
+                spillBytes -= s.size;
+                s.delete();
+            }
+            segments.peekFirst().reset();
+        }
+    }
+    /**
+     * 磁盘读回的元素在锁外反序列化
+     * @param x-内存中的元素
+     * @title unwrap
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E
+     */
+    private E unwrap(Object x) {
+        if (!(x instanceof Spilled)) {
+            return (E) x;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(((Spilled) x).bytes))) {
+            return (E) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("溢出元素反序列化失败!", e);
+        }
+    }
+
+    /**
+     * 序列化元素，失败时计数并返回null；日志按失败次数的2的幂输出，避免在入队路径上每次都打日志
+     * @param e-元素
+     * @title trySerialize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return byte[]
+     */
+    private byte[] trySerialize(E e) {
+        try {
+            return serialize(e);
+        } catch (IOException ex) {
+            long failures = serializeFailures.incrementAndGet();
+            if ((failures & (failures - 1)) == 0) {
+                LOGGER.warn("元素序列化失败，按队列已满处理,累计失败:{}次:{}", failures, ex.toString());
+            }
+            return null;
+        }
+    }
+
+    private static byte[] serialize(Object e) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(e);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * 从磁盘读回、还没有反序列化的元素
+     */
+    private static final class Spilled {
+
+        final byte[] bytes;
+
+        Spilled(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 内存映射的段文件，记录格式为「4字节长度 + 序列化字节」，只追加写、顺序读
+     */
+    private static final class Segment {
+
+        final File file;
+
+        final int size;
+        /**
+         * 写位置即writer的position
+         */
+        final MappedByteBuffer writer;
+        /**
+         * 读位置即reader的position
+         */
+        final ByteBuffer reader;
+        /**
+         * 已写入的记录数
+         */
+        int entries;
+        /**
+         * 已读出的记录数
+         */
+        int consumed;
+
+        Segment(File file, int size) throws IOException {
+            this.file = file;
+            this.size = size;
+            //映射建立后就可以关闭文件，映射一直有效
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                writer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            reader = writer.duplicate();
+        }
+
+        void reset() {
+            writer.clear();
+            reader.clear();
+            entries = 0;
+            consumed = 0;
+        }
+
+        void delete() {
+            if (!file.delete()) {
+                LOGGER.warn("段文件删除失败:{}", file);
+            }
+        }
+    }
+}
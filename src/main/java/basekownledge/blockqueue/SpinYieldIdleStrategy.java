@@ -0,0 +1,55 @@
+package basekownledge.blockqueue;
+
+/**
+ * 先空转再让出CPU的策略：前spins次空转，之后yields次Thread.yield()，仍然没有元素则转为阻塞等待
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title SpinYieldIdleStrategy
+ * @date 2026/10/17
+ */
+public class SpinYieldIdleStrategy implements IdleStrategy {
+    /**
+     * 默认空转次数
+     */
+    private static final int DEFAULT_SPINS = 100;
+    /**
+     * 默认让出CPU次数
+     */
+    private static final int DEFAULT_YIELDS = 100;
+    /**
+     * 空转次数
+     */
+    private final int spins;
+    /**
+     * 空转之后让出CPU的次数
+     */
+    private final int yields;
+
+    public SpinYieldIdleStrategy() {
+        this(DEFAULT_SPINS, DEFAULT_YIELDS);
+    }
+    /**
+     * 构造函数
+     * @param spins-空转次数
+     * @param yields-空转之后让出CPU的次数
+     */
+    public SpinYieldIdleStrategy(int spins, int yields) {
+        if (spins < 0 || yields < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.spins = spins;
+        this.yields = yields;
+    }
+
+    @Override
+    public boolean idle(int attempt) {
+        if (attempt < spins) {
+            return true;
+        }
+        if (attempt - spins < yields) {
+            Thread.yield();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,518 @@
+package basekownledge.blockqueue;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分道(条带化)阻塞队列
+ * 由N条独立的通道组成，每条通道有自己的锁，生产者按线程哈希选择自己的通道，通道锁被占用时顺延到下一条空闲的通道，
+ * 多个提交线程基本不会争用同一把锁。消费者先取自己的通道，再依次扫描其他通道；扫描起点随取出次数轮转，
+ * 消费者少于通道数时也不会有通道被饿死，整体是近似FIFO(每条通道内严格FIFO)。
+ * 容量是全局的：入队前用CAS在全局计数上预留位置，队列满时与ArrayBlockingQueue一样拒绝或等待。
+ * 等待/唤醒走单独的waitLock，只有确实有线程在等待时才会去加这把锁，快路径上只有通道锁和一次CAS。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title StripedBlockingQueue
+ * @date 2026/10/17
+ */
+public class StripedBlockingQueue<E> implements BlockingQueue<E> {
+    /**
+     * 消费者每取出多少个元素后扫描起点轮转一条通道
+     */
+    private static final int ROTATE_SHIFT = 4;
+    /**
+     * 通道
+     */
+    private final Lane<E>[] lanes;
+    /**
+     * 通道数-1(通道数是2的幂)
+     */
+    private final int mask;
+    /**
+     * 容量
+     */
+    private final int capacity;
+    /**
+     * 已预留的元素个数(包括正在放入通道的)
+     */
+    private final AtomicInteger count = new AtomicInteger();
+    /**
+     * 消费者取出次数，只用来轮转扫描起点，允许并发丢失更新
+     */
+    private int pollSequence;
+    /**
+     * 等待锁
+     */
+    private final ReentrantLock waitLock = new ReentrantLock();
+    /**
+     * 队列未空条件
+     */
+    private final Condition notEmptyCondition = waitLock.newCondition();
+    /**
+     * 队列未满条件
+     */
+    private final Condition notFullCondition = waitLock.newCondition();
+    /**
+     * 等待中的消费者个数(只在waitLock下修改)
+     */
+    private volatile int waitingConsumers;
+    /**
+     * 等待中的生产者个数(只在waitLock下修改)
+     */
+    private volatile int waitingProducers;
+
+    public StripedBlockingQueue(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+    /**
+     * 构造函数
+     * @param capacity-全局容量
+     * @param laneCount-通道数，向上取整为2的幂
+     */
+    public StripedBlockingQueue(int capacity, int laneCount) {
+        if (capacity <= 0 || laneCount <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int n = 1;
+        while (n < laneCount && n < (1 << 16)) {
+            n <<= 1;
+        }
+        this.capacity = capacity;
+        this.mask = n - 1;
+        this.lanes = newLanes(n);
+        for (int i = 0; i < n; i++) {
+            lanes[i] = new Lane<>();
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (this.offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("队列已满!");
+    }
+
+    @Override
+    public boolean remove() {
+        if (null != poll()) {
+            return true;
+        }
+        throw new IllegalStateException("队列为空!");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (null == o) {
+            return false;
+        }
+        for (Lane<E> lane : lanes) {
+            if (lane.size == 0) {
+                continue;
+            }
+            boolean removed;
+            lane.lock.lock();
+            try {
+                removed = lane.items.remove(o);
+                lane.size = lane.items.size();
+            } finally {
+                lane.lock.unlock();
+            }
+            if (removed) {
+                release(1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            return false;
+        }
+        if (!tryReserve(1)) {
+            return false;
+        }
+        push(e);
+        return true;
+    }
+
+    @Override
+    public int offerAll(Collection<? extends E> c) {
+        for (E e : c) {
+            if (null == e) {
+                throw new NullPointerException();
+            }
+        }
+        int n;
+        for (;;) {
+            int cur = count.get();
+            n = Math.min(c.size(), capacity - cur);
+            if (n <= 0) {
+                return 0;
+            }
+            if (count.compareAndSet(cur, cur + n)) {
+                break;
+            }
+        }
+        //整批放入同一条通道，批内保持FIFO，只加一次通道锁
+        Lane<E> lane = lockLane();
+        try {
+            int i = 0;
+            for (E e : c) {
+                if (i == n) {
+                    break;
+                }
+                lane.items.addLast(e);
+                i++;
+            }
+            lane.size = lane.items.size();
+        } finally {
+            lane.lock.unlock();
+        }
+        if (waitingConsumers > 0) {
+            waitLock.lock();
+            try {
+                for (int k = 0; k < n && waitLock.hasWaiters(notEmptyCondition); k++) {
+                    notEmptyCondition.signal();
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public E poll() {
+        if (count.get() == 0) {
+            return null;
+        }
+        E e = scan();
+        if (null != e) {
+            release(1);
+        }
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        int start = homeIndex();
+        for (int i = 0; i <= mask; i++) {
+            Lane<E> lane = lanes[(start + i) & mask];
+            if (lane.size == 0) {
+                continue;
+            }
+            lane.lock.lock();
+            try {
+                E e = lane.items.peekFirst();
+                if (null != e) {
+                    return e;
+                }
+            } finally {
+                lane.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = poll();
+        if (null != e) {
+            return e;
+        }
+        waitLock.lockInterruptibly();
+        try {
+            waitingConsumers++;
+            try {
+                //先登记等待再扫描，生产者放入元素后看到有人等待就会来唤醒
+                while ((e = scan()) == null) {
+                    notEmptyCondition.await();
+                }
+            } finally {
+                waitingConsumers--;
+            }
+        } finally {
+            waitLock.unlock();
+        }
+        release(1);
+        return e;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        if (!tryReserve(1)) {
+            waitLock.lockInterruptibly();
+            try {
+                waitingProducers++;
+                try {
+                    while (!tryReserve(1)) {
+                        notFullCondition.await();
+                    }
+                } finally {
+                    waitingProducers--;
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+        push(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) {
+            return false;
+        }
+        if (!tryReserve(1)) {
+            long nanos = unit.toNanos(timeout);
+            waitLock.lockInterruptibly();
+            try {
+                waitingProducers++;
+                try {
+                    while (!tryReserve(1)) {
+                        if (nanos <= 0L) {
+                            return false;
+                        }
+                        nanos = notFullCondition.awaitNanos(nanos);
+                    }
+                } finally {
+                    waitingProducers--;
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+        push(e);
+        return true;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (null != e) {
+            return e;
+        }
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        try {
+            waitingConsumers++;
+            try {
+                while ((e = scan()) == null) {
+                    if (nanos <= 0L) {
+                        return null;
+                    }
+                    nanos = notEmptyCondition.awaitNanos(nanos);
+                }
+            } finally {
+                waitingConsumers--;
+            }
+        } finally {
+            waitLock.unlock();
+        }
+        release(1);
+        return e;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0 || count.get() == 0) {
+            return 0;
+        }
+        int n = 0;
+        int start = homeIndex();
+        for (int i = 0; i <= mask && n < maxElements; i++) {
+            Lane<E> lane = lanes[(start + i) & mask];
+            if (lane.size == 0) {
+                continue;
+            }
+            lane.lock.lock();
+            try {
+                E e;
+                while (n < maxElements && (e = lane.items.pollFirst()) != null) {
+                    c.add(e);
+                    n++;
+                }
+                lane.size = lane.items.size();
+            } finally {
+                lane.lock.unlock();
+            }
+        }
+        if (n > 0) {
+            release(n);
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public int length() {
+        return capacity;
+    }
+    /**
+     * 通道数
+     * @title getLaneCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+    /**
+     * 在全局计数上预留n个位置
+     * @param n-个数
+     * @title tryReserve
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 容量不足返回false
+     */
+    private boolean tryReserve(int n) {
+        for (;;) {
+            int c = count.get();
+            if (c + n > capacity) {
+                return false;
+            }
+            if (count.compareAndSet(c, c + n)) {
+                return true;
+            }
+        }
+    }
+    /**
+     * 释放n个位置，有生产者在等待时唤醒
+     * @param n-个数
+     * @title release
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void release(int n) {
+        count.addAndGet(-n);
+        if (waitingProducers > 0) {
+            waitLock.lock();
+            try {
+                for (int k = 0; k < n && waitLock.hasWaiters(notFullCondition); k++) {
+                    notFullCondition.signal();
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+    /**
+     * 把已经预留了位置的元素放入通道，有消费者在等待时唤醒
+     * @param e-元素
+     * @title push
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void push(E e) {
+        Lane<E> lane = lockLane();
+        try {
+            lane.items.addLast(e);
+            lane.size = lane.items.size();
+        } finally {
+            lane.lock.unlock();
+        }
+        if (waitingConsumers > 0) {
+            waitLock.lock();
+            try {
+                notEmptyCondition.signal();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+    /**
+     * 锁住一条通道：先试当前线程的通道，被占用时顺延尝试其他通道，都被占用才在自己的通道上等待
+     * @title lockLane
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Lane<E> 已加锁的通道
+     */
+    private Lane<E> lockLane() {
+        int home = threadHash();
+        for (int i = 0; i <= mask; i++) {
+            Lane<E> lane = lanes[(home + i) & mask];
+            if (lane.lock.tryLock()) {
+                return lane;
+            }
+        }
+        Lane<E> lane = lanes[home & mask];
+        lane.lock.lock();
+        return lane;
+    }
+    /**
+     * 从扫描起点开始依次尝试各条通道，取出一个元素
+     * @title scan
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return E 所有通道都为空时返回null
+     */
+    private E scan() {
+        int start = homeIndex();
+        for (int i = 0; i <= mask; i++) {
+            Lane<E> lane = lanes[(start + i) & mask];
+            if (lane.size == 0) {
+                continue;
+            }
+            lane.lock.lock();
+            try {
+                E e = lane.items.pollFirst();
+                if (null != e) {
+                    lane.size = lane.items.size();
+                    pollSequence++;
+                    return e;
+                }
+            } finally {
+                lane.lock.unlock();
+            }
+        }
+        return null;
+    }
+    /**
+     * 消费者的扫描起点：自己的通道加上随取出次数轮转的偏移
+     */
+    private int homeIndex() {
+        return (threadHash() + (pollSequence >>> ROTATE_SHIFT)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Lane<E>[] newLanes(int n) {
+        return (Lane<E>[]) new Lane<?>[n];
+    }
+
+    private static int threadHash() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /**
+     * 通道
+     */
+    private static final class Lane<E> {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final ArrayDeque<E> items = new ArrayDeque<>();
+        /**
+         * 通道元素个数，扫描时不加锁跳过空通道
+         */
+        volatile int size;
+    }
+}
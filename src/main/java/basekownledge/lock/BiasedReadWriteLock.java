@@ -0,0 +1,249 @@
+package basekownledge.lock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 读偏向的可扩展读写锁(BRAVO风格)
+ * 在一把中心读写锁(StampedLock)外面加一组按CPU条带化的读者槽位：读偏向开启时，读线程按线程哈希选一个槽位加1，
+ * 再确认偏向仍然开启就算拿到读锁，不碰中心锁的state；每个槽位独占一个缓存行，线程增加时读锁的开销基本不变。
+ * 写线程先拿中心写锁，再关闭读偏向并等待所有槽位归零；关闭偏向花费的时间乘以INHIBIT_MULTIPLIER作为禁止期，
+ * 禁止期内读线程走中心锁，过了禁止期后由走中心锁的读线程重新打开偏向，写频繁时自动退化为普通读写锁。
+ * 读线程先加槽位再读偏向标记，写线程先清偏向标记再读槽位，两边都是volatile操作，至少有一方能看到对方。
+ * 锁不可重入，用加锁返回的戳解锁：偏向路径的读锁戳是负数(槽位下标)，其他戳是StampedLock的戳。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title BiasedReadWriteLock
+ * @date 2026/10/17
+ */
+public class BiasedReadWriteLock {
+    /**
+     * 槽位间隔的long个数，16个long是128字节，相邻槽位不在同一个缓存行(也避开相邻行预取)
+     */
+    private static final int SLOT_STRIDE = 16;
+    /**
+     * 禁止期是关闭偏向耗时的倍数，写锁用在等待读者上的时间占比不超过1/(1+INHIBIT_MULTIPLIER)
+     */
+    private static final long INHIBIT_MULTIPLIER = 9;
+    /**
+     * 等待读者槽位归零时，先自旋这么多次再让出CPU
+     */
+    private static final int REVOKE_SPINS = 64;
+    /**
+     * 中心读写锁
+     */
+    private final StampedLock lock = new StampedLock();
+    /**
+     * 读者槽位，第i个槽位在下标i*SLOT_STRIDE
+     */
+    private final AtomicLongArray slots;
+    /**
+     * 槽位个数减1(槽位个数是2的幂)
+     */
+    private final int mask;
+    /**
+     * 是否读偏向
+     */
+    private volatile boolean readBias = true;
+    /**
+     * 禁止期结束的时间，只在持有中心锁时读写
+     */
+    private long inhibitUntil;
+
+    public BiasedReadWriteLock() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+    /**
+     * 构造函数
+     * @param slotCount-读者槽位个数，向上取2的幂
+     */
+    public BiasedReadWriteLock(int slotCount) {
+        if (slotCount <= 0 || slotCount > (1 << 20)) {
+            throw new IllegalArgumentException();
+        }
+        int n = Integer.highestOneBit(slotCount);
+        if (n < slotCount) {
+            n <<= 1;
+        }
+        mask = n - 1;
+        slots = new AtomicLongArray(n * SLOT_STRIDE);
+    }
+    /**
+     * 获取读锁
+     * @title readLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 解锁时使用的戳
+     */
+    public long readLock() {
+        long stamp = tryBiasedRead();
+        if (stamp != 0L) {
+            return stamp;
+        }
+        stamp = lock.readLock();
+        maybeEnableBias();
+        return stamp;
+    }
+    /**
+     * 尝试获取读锁，不等待
+     * @title tryReadLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 获取失败返回0
+     */
+    public long tryReadLock() {
+        long stamp = tryBiasedRead();
+        if (stamp != 0L) {
+            return stamp;
+        }
+        stamp = lock.tryReadLock();
+        if (stamp != 0L) {
+            maybeEnableBias();
+        }
+        return stamp;
+    }
+    /**
+     * 释放读锁
+     * @param stamp-readLock返回的戳
+     * @title unlockRead
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlockRead(long stamp) {
+        if (stamp < 0L) {
+            int index = (int) (-stamp - 1) * SLOT_STRIDE;
+            if (index >= slots.length()) {
+                throw new IllegalMonitorStateException();
+            }
+            if (slots.getAndDecrement(index) <= 0L) {
+                slots.getAndIncrement(index);
+                throw new IllegalMonitorStateException();
+            }
+        } else {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * 获取写锁，偏向开启时先撤销偏向并等待偏向路径上的读线程全部释放
+     * @title writeLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 解锁时使用的戳
+     */
+    public long writeLock() {
+        long stamp = lock.writeLock();
+        if (readBias) {
+            revokeBias();
+        }
+        return stamp;
+    }
+    /**
+     * 尝试获取写锁，不等待；偏向路径上有读线程时失败
+     * @title tryWriteLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 获取失败返回0
+     */
+    public long tryWriteLock() {
+        long stamp = lock.tryWriteLock();
+        if (stamp == 0L || !readBias) {
+            return stamp;
+        }
+        readBias = false;
+        inhibitUntil = System.nanoTime();
+        for (int i = 0; i <= mask; i++) {
+            if (slots.get(i * SLOT_STRIDE) != 0L) {
+                //有读者就放弃，偏向保持关闭，下一个走中心锁的读线程会在禁止期之后重新打开
+                lock.unlockWrite(stamp);
+                return 0L;
+            }
+        }
+        return stamp;
+    }
+    /**
+     * 释放写锁
+     * @param stamp-writeLock返回的戳
+     * @title unlockWrite
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlockWrite(long stamp) {
+        lock.unlockWrite(stamp);
+    }
+    /**
+     * 当前是否读偏向
+     * @title isReadBiased
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean isReadBiased() {
+        return readBias;
+    }
+    /**
+     * 是否持有写锁
+     * @title isWriteLocked
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean isWriteLocked() {
+        return lock.isWriteLocked();
+    }
+    /**
+     * 偏向路径获取读锁：槽位加1后再确认偏向仍然开启，否则撤回
+     * @title tryBiasedRead
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 成功返回负数的戳，失败返回0
+     */
+    private long tryBiasedRead() {
+        if (!readBias) {
+            return 0L;
+        }
+        int slot = threadHash() & mask;
+        int index = slot * SLOT_STRIDE;
+        slots.getAndIncrement(index);
+        if (readBias) {
+            return -(slot + 1L);
+        }
+        //写线程已经在撤销偏向，撤回后走中心锁
+        slots.getAndDecrement(index);
+        return 0L;
+    }
+    /**
+     * 持有中心读锁时，偏向已关闭并且过了禁止期则重新打开偏向(此时没有写线程)
+     * @title maybeEnableBias
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void maybeEnableBias() {
+        if (!readBias && System.nanoTime() - inhibitUntil >= 0L) {
+            readBias = true;
+        }
+    }
+    /**
+     * 持有写锁时关闭偏向，等待所有槽位归零，并按耗时设置禁止期
+     * @title revokeBias
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void revokeBias() {
+        readBias = false;
+        long start = System.nanoTime();
+        for (int i = 0; i <= mask; i++) {
+            int index = i * SLOT_STRIDE;
+            for (int spins = 0; slots.get(index) != 0L; spins++) {
+                if (spins >= REVOKE_SPINS) {
+                    Thread.yield();
+                }
+            }
+        }
+        long now = System.nanoTime();
+        inhibitUntil = now + (now - start) * INHIBIT_MULTIPLIER;
+    }
+
+    private static int threadHash() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
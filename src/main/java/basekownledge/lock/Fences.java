@@ -0,0 +1,62 @@
+package basekownledge.lock;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * 内存屏障(Java 8版本：通过反射调用sun.misc.Unsafe.loadFence)
+ * 乐观读在校验版本号之前需要一个读屏障，保证之前读取的数据不会被重排到读版本号之后；
+ * Java 8没有公开的屏障API，编译期也不能直接引用sun.misc，所以用方法句柄调用，取不到时退化为一次volatile写(释放语义同样能阻止重排)。
+ * JDK 21及以上运行时由多版本jar中META-INF/versions/21下的同名类替换为VarHandle版本(源码在src/main/java21)，两个版本的方法签名必须保持一致
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title Fences
+ * @date 2026/10/17
+ */
+final class Fences {
+    /**
+     * Unsafe.loadFence()，绑定了Unsafe实例，取不到时为null
+     */
+    private static final MethodHandle LOAD_FENCE;
+    /**
+     * 退化方案使用的volatile字段
+     */
+    private static volatile int fallback;
+
+    static {
+        MethodHandle handle = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            handle = MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "loadFence", MethodType.methodType(void.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            handle = null;
+        }
+        LOAD_FENCE = handle;
+    }
+
+    private Fences() {
+    }
+    /**
+     * 读屏障：屏障之前的读不会被重排到屏障之后的读、写之后
+     * @title loadFence
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    static void loadFence() {
+        if (LOAD_FENCE != null) {
+            try {
+                LOAD_FENCE.invokeExact();
+                return;
+            } catch (Throwable ignore) {
+                //loadFence不会抛出异常
+            }
+        }
+        fallback = 0;
+    }
+}
@@ -0,0 +1,204 @@
+package basekownledge.lock;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MCS队列锁(公平、可重入)
+ * 每个加锁线程带一个节点，用getAndSet把节点挂到队尾，再把自己的节点链到前驱的next上；
+ * 等待时只读自己节点上的状态，解锁时把锁直接交给后继节点，后继不需要再竞争。
+ * 与基于AQS的公平锁相比：等待线程各自在自己的节点上自旋，不会争抢同一个缓存行；
+ * 持有时间很短时，后继在自旋期间就能拿到锁，交接不需要unpark和上下文切换。
+ * 自旋最多SPIN_NANOS，之后park，由解锁线程unpark，长时间持有锁时也不会白白占用CPU。
+ * 严格按到达顺序交接锁，tryLock只在锁空闲且没有人排队时成功；加锁不响应中断。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title McsLock
+ * @date 2026/10/17
+ */
+public class McsLock {
+    /**
+     * 只有多核时自旋才有意义，单核上前驱不可能在自旋期间释放锁
+     */
+    private static final boolean MULTI_CORE = Runtime.getRuntime().availableProcessors() > 1;
+    /**
+     * park之前在自己的节点上自旋的时间上限
+     */
+    private static final long SPIN_NANOS = 20_000L;
+    /**
+     * 每自旋这么多次检查一次时间
+     */
+    private static final int SPINS_PER_CHECK = 64;
+    /**
+     * 队尾节点，为null表示锁空闲并且没有人排队
+     */
+    private final AtomicReference<Node> tail = new AtomicReference<>();
+    /**
+     * 持有锁的线程，只由持有者读写
+     */
+    private Thread owner;
+    /**
+     * 持有者的节点
+     */
+    private Node ownerNode;
+    /**
+     * 重入次数
+     */
+    private int holds;
+    /**
+     * 加锁，按到达顺序排队
+     * @title lock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void lock() {
+        Thread current = Thread.currentThread();
+        if (owner == current) {
+            holds++;
+            return;
+        }
+        Node node = new Node(current);
+        Node pred = tail.getAndSet(node);
+        if (null != pred) {
+            pred.next = node;
+            await(node);
+        }
+        setOwner(current, node);
+    }
+    /**
+     * 锁空闲并且没有人排队时加锁，否则立即返回false
+     * @title tryLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean tryLock() {
+        Thread current = Thread.currentThread();
+        if (owner == current) {
+            holds++;
+            return true;
+        }
+        if (null != tail.get()) {
+            return false;
+        }
+        Node node = new Node(current);
+        if (tail.compareAndSet(null, node)) {
+            setOwner(current, node);
+            return true;
+        }
+        return false;
+    }
+    /**
+     * 解锁，重入次数归零时把锁直接交给后继
+     * @title unlock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlock() {
+        if (owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException();
+        }
+        if (--holds > 0) {
+            return;
+        }
+        Node node = ownerNode;
+        owner = null;
+        ownerNode = null;
+        Node next = node.next;
+        if (null == next) {
+            if (tail.compareAndSet(node, null)) {
+                return;
+            }
+            //后继已经挂到队尾，但还没来得及链到next上
+            while (null == (next = node.next)) {
+                Thread.yield();
+            }
+        }
+        next.granted = true;
+        if (next.parked) {
+            LockSupport.unpark(next.thread);
+        }
+    }
+    /**
+     * 当前线程是否持有锁
+     * @title isHeldByCurrentThread
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean isHeldByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+    /**
+     * 锁是否被持有或者有人排队
+     * @title isLocked
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean isLocked() {
+        return null != tail.get();
+    }
+
+    private void setOwner(Thread current, Node node) {
+        owner = current;
+        ownerNode = node;
+        holds = 1;
+    }
+    /**
+     * 在自己的节点上等待前驱交接：先自旋，超过SPIN_NANOS后park
+     * 等待线程先写parked再读granted，解锁线程先写granted再读parked，至少有一方能看到对方，不会丢失唤醒
+     * @param node-自己的节点
+     * @title await
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void await(Node node) {
+        if (MULTI_CORE) {
+            long deadline = System.nanoTime() + SPIN_NANOS;
+            for (int spins = 1; !node.granted; spins++) {
+                if (spins % SPINS_PER_CHECK == 0 && System.nanoTime() - deadline >= 0L) {
+                    break;
+                }
+            }
+        }
+        if (node.granted) {
+            return;
+        }
+        node.parked = true;
+        boolean interrupted = false;
+        while (!node.granted) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 排队节点
+     */
+    private static final class Node {
+
+        final Thread thread;
+        /**
+         * 后继节点
+         */
+        volatile Node next;
+        /**
+         * 前驱已经把锁交给了这个节点
+         */
+        volatile boolean granted;
+        /**
+         * 节点线程已经(或即将)park，交接时需要unpark
+         */
+        volatile boolean parked;
+
+        Node(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
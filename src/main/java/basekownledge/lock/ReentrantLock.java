@@ -1,5 +1,6 @@
 package basekownledge.lock;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 
 /**
@@ -23,6 +24,13 @@ public class ReentrantLock {
     public ReentrantLock(boolean fair) {
         this.sync = fair ? new FairSync() : new NoFairSync();
     }
+    /**
+     * 使用指定的Sync(供同一个包中需要定制Sync的锁使用，例如在Sync上填充缓存行)
+     * @param sync-真正的锁
+     */
+    ReentrantLock(Sync sync) {
+        this.sync = sync;
+    }
     /**
      * 加锁-直接调用sync中的lock
      * @title lock
@@ -33,6 +41,51 @@ public class ReentrantLock {
         sync.lock();
     }
 
+    /**
+     * 尝试加锁，锁被其他线程持有时立即返回false(非公平，公平锁也会插队)
+     * @title tryLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean tryLock(){
+        return sync.nonfairTryAcquire(1);
+    }
+    /**
+     * 在timeout指定的时间内加锁，可以被中断
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @title tryLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 超时返回false
+     */
+    public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        if (sync.spinLock(deadline)) {
+            return true;
+        }
+        return sync.tryAcquireNanos(1, deadline - System.nanoTime());
+    }
+    /**
+     * 加锁，等待过程中可以被中断
+     * @title lockInterruptibly
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void lockInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (!sync.spinLock(0L)) {
+            sync.acquireInterruptibly(1);
+        }
+    }
+
     public void unlock(){
         sync.release(1);
     }
@@ -44,6 +97,34 @@ public class ReentrantLock {
      * @date 2020/2/28
      */
     abstract static class Sync extends AbstractQueuedSynchronizer{
+        /**
+         * 只有多核时自旋才有意义，单核上持有锁的线程不可能在自旋期间释放锁
+         */
+        static final boolean MULTI_CORE = Runtime.getRuntime().availableProcessors() > 1;
+        /**
+         * 自旋时间上限20μs，平均持有时间超过它就不再自旋，直接排队park
+         */
+        static final long MAX_SPIN_NANOS = 20_000L;
+        /**
+         * 平均持有时间的初始值，保证还没有采样时也会尝试自旋
+         */
+        static final long INITIAL_HOLD_NANOS = 1_000L;
+        /**
+         * 每16次加锁采样一次持有时间，其余加锁不调用System.nanoTime()
+         */
+        static final int HOLD_SAMPLE_MASK = 15;
+        /**
+         * 最近持有时间的指数加权平均(权重1/8)
+         */
+        volatile long avgHoldNanos = INITIAL_HOLD_NANOS;
+        /**
+         * 本次持有的开始时间，0表示本次不采样(只由持有锁的线程读写)
+         */
+        private long holdStart;
+        /**
+         * 加锁次数，用于采样(只由持有锁的线程读写)
+         */
+        private int acquireCount;
         /**
          * 加锁
          * @title lock
@@ -51,6 +132,61 @@ public class ReentrantLock {
          * @since v1.0.0
          */
         abstract void lock();
+        /**
+         * 排队之前先自旋加锁，默认不自旋
+         * @param deadline-自旋截止时间(System.nanoTime())，0表示只受自旋预算限制
+         * @title spinLock
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         * @return boolean 是否已经加锁
+         */
+        boolean spinLock(long deadline) {
+            return false;
+        }
+        /**
+         * 锁从空闲变为被当前线程持有时调用，按采样记录开始时间
+         * @title onAcquired
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         */
+        final void onAcquired() {
+            holdStart = (++acquireCount & HOLD_SAMPLE_MASK) == 0 ? System.nanoTime() : 0L;
+        }
+        /**
+         * 自旋预算：平均持有时间的2倍，平均持有时间超过上限时为0
+         * @title spinBudgetNanos
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         * @return long
+         */
+        final long spinBudgetNanos() {
+            long hold = avgHoldNanos;
+            return hold > MAX_SPIN_NANOS ? 0L : Math.min(MAX_SPIN_NANOS, hold << 1);
+        }
+
+        final boolean nonfairTryAcquire(int acquire){
+            final Thread currentThread = Thread.currentThread();
+            //获取当前锁被重入的次数
+            int c = getState();
+            if(c == 0){
+                //说明当前锁没有被任何线程持有
+                if(compareAndSetState(0,acquire)){
+                    //将当前线程标记为持有锁的线程
+                    setExclusiveOwnerThread(currentThread);
+                    onAcquired();
+                    return true;
+                }
+            }else if(currentThread == getExclusiveOwnerThread()){
+                //当前线程就是持有锁的线程,所以在这里不需要考虑同步问题
+                int nextc = c + acquire;
+                if (nextc < 0) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                setState(nextc);
+                return true;
+            }
+            return false;
+        }
 
         @Override
         protected boolean tryRelease(int releases) {
@@ -65,6 +201,12 @@ public class ReentrantLock {
                 free = true;
                 //清除锁的持有线程标记
                 setExclusiveOwnerThread(null);
+                long start = holdStart;
+                if (start != 0L) {
+                    //采样的持有时间计入平均值，自旋预算随之调整
+                    long avg = avgHoldNanos;
+                    avgHoldNanos = avg + ((System.nanoTime() - start - avg) >> 3);
+                }
             }
             //更新state值
             setState(c);
@@ -93,6 +235,7 @@ public class ReentrantLock {
                 //hasQueuedPredecessors就进行了优先级判断
                 if (!hasQueuedPredecessors() && compareAndSetState(0, acquires)) {
                     setExclusiveOwnerThread(current);
+                    onAcquired();
                     return true;
                 }
             }
@@ -114,45 +257,54 @@ public class ReentrantLock {
      * @title ReentrantLock
      * @date 2020/2/28
      */
-    static final class NoFairSync extends Sync{
+    static class NoFairSync extends Sync{
 
         @Override
         void lock() {
+            if (!spinLock(0L)) {
+                acquire(1);
+            }
+        }
+        /**
+         * 自适应自旋：先CAS一次，失败后在自旋预算内反复尝试，
+         * 持有锁的线程不在运行(已经阻塞或者park)时说明锁短时间内不会释放，立即停止自旋去排队
+         */
+        @Override
+        boolean spinLock(long deadline) {
             //以cas方式尝试将AQS中的state从0更新为1
             if(compareAndSetState(0,1)){
                 //获取锁成功则将当前线程标记为持有锁的线程,然后直接返回
                 setExclusiveOwnerThread(Thread.currentThread());
-                return;
+                onAcquired();
+                return true;
+            }
+            long budget = MULTI_CORE ? spinBudgetNanos() : 0L;
+            if (budget == 0L || getExclusiveOwnerThread() == Thread.currentThread()) {
+                //不自旋，重入交给acquire处理
+                return false;
+            }
+            long end = System.nanoTime() + budget;
+            if (deadline != 0L && deadline - end < 0L) {
+                end = deadline;
+            }
+            for (int i = 1; ; i++) {
+                if (getState() == 0 && compareAndSetState(0, 1)) {
+                    setExclusiveOwnerThread(Thread.currentThread());
+                    onAcquired();
+                    return true;
+                }
+                if ((i & 63) == 0) {
+                    Thread owner = getExclusiveOwnerThread();
+                    if ((owner != null && owner.getState() != Thread.State.RUNNABLE) || System.nanoTime() - end >= 0L) {
+                        return false;
+                    }
+                }
             }
-            acquire(1);
         }
 
         @Override
         protected boolean tryAcquire(int arg) {
             return nonfairTryAcquire(arg);
         }
-
-        private boolean nonfairTryAcquire(int acquire){
-            final Thread currentThread = Thread.currentThread();
-            //获取当前锁被重入的次数
-            int c = getState();
-            if(c == 0){
-                //说明当前锁没有被任何线程持有
-                if(compareAndSetState(0,acquire)){
-                    //将当前线程标记为持有锁的线程
-                    setExclusiveOwnerThread(currentThread);
-                    return true;
-                }
-            }else if(currentThread == getExclusiveOwnerThread()){
-                //当前线程就是持有锁的线程,所以在这里不需要考虑同步问题
-                int nextc = c + acquire;
-                if (nextc < 0) {
-                    throw new Error("Maximum lock count exceeded");
-                }
-                setState(nextc);
-                return true;
-            }
-            return false;
-        }
     }
 }
@@ -0,0 +1,418 @@
+package basekownledge.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.AbstractQueuedLongSynchronizer;
+
+/**
+ * 带乐观读的版本戳锁(StampedLock风格)
+ * state是一个long：低16位是读锁个数，第16位是写锁标记，其余高位是版本号。写锁释放时在写锁标记上再加一次，
+ * 进位使版本号加1，所以每次写都会改变版本号。
+ * 乐观读只读取state取得版本戳，读完数据后用validate校验版本戳没有变化，整个过程不写共享内存，
+ * 读多写少的场景下读线程之间没有缓存行争用；校验失败时再退回到读锁。
+ * 读锁、写锁的排队和唤醒交给AbstractQueuedLongSynchronizer；有线程在排队时新的读线程也排队，避免写线程饿死。
+ * 与ReentrantLock不同，这个锁不可重入，也不记录持有线程，用加锁返回的戳解锁。
+ * <pre>
+ * long stamp = lock.tryOptimisticRead();
+ * 读取数据...
+ * if (!lock.validate(stamp)) {
+ *     stamp = lock.readLock();
+ *     try {
+ *         重新读取数据...
+ *     } finally {
+ *         lock.unlockRead(stamp);
+ *     }
+ * }
+ * </pre>
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title StampedLock
+ * @date 2026/10/17
+ */
+public class StampedLock {
+    /**
+     * 一个读锁
+     */
+    private static final long RUNIT = 1L;
+    /**
+     * 读锁个数的位
+     */
+    private static final long RBITS = (1L << 16) - 1;
+    /**
+     * 写锁标记
+     */
+    private static final long WBIT = 1L << 16;
+    /**
+     * 读锁和写锁的位
+     */
+    private static final long ABITS = RBITS | WBIT;
+    /**
+     * 版本号和写锁标记的位
+     */
+    private static final long SBITS = ~RBITS;
+    /**
+     * state的初始值，保证版本戳不为0(0表示获取失败)
+     */
+    private static final long ORIGIN = WBIT << 1;
+
+    private final Sync sync = new Sync();
+    /**
+     * 获取写锁
+     * @title writeLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 解锁或转换时使用的戳
+     */
+    public long writeLock() {
+        sync.acquire(1);
+        return sync.currentState();
+    }
+    /**
+     * 尝试获取写锁，不等待
+     * @title tryWriteLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 获取失败返回0
+     */
+    public long tryWriteLock() {
+        return sync.tryAcquire(1) ? sync.currentState() : 0L;
+    }
+    /**
+     * 在timeout指定的时间内获取写锁，可以被中断
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @title tryWriteLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 超时返回0
+     */
+    public long tryWriteLock(long timeout, TimeUnit unit) throws InterruptedException {
+        return sync.tryAcquireNanos(1, unit.toNanos(timeout)) ? sync.currentState() : 0L;
+    }
+    /**
+     * 获取读锁
+     * @title readLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 解锁或转换时使用的戳
+     */
+    public long readLock() {
+        long s = sync.currentState();
+        //没有写锁也没有人排队时直接CAS，不进入AQS
+        if ((s & WBIT) == 0L && (s & RBITS) < RBITS && !sync.hasQueuedThreads() && sync.casState(s, s + RUNIT)) {
+            return s + RUNIT;
+        }
+        sync.acquireShared(1);
+        return sync.currentState();
+    }
+    /**
+     * 尝试获取读锁，不等待
+     * @title tryReadLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 获取失败返回0
+     */
+    public long tryReadLock() {
+        for (;;) {
+            long s = sync.currentState();
+            if ((s & WBIT) != 0L || (s & RBITS) == RBITS) {
+                return 0L;
+            }
+            if (sync.casState(s, s + RUNIT)) {
+                return s + RUNIT;
+            }
+        }
+    }
+    /**
+     * 在timeout指定的时间内获取读锁，可以被中断
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @title tryReadLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 超时返回0
+     */
+    public long tryReadLock(long timeout, TimeUnit unit) throws InterruptedException {
+        return sync.tryAcquireSharedNanos(1, unit.toNanos(timeout)) ? sync.currentState() : 0L;
+    }
+    /**
+     * 乐观读：没有写锁时返回当前版本戳，不修改任何共享状态
+     * @title tryOptimisticRead
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 有写锁时返回0(validate(0)总是false)
+     */
+    public long tryOptimisticRead() {
+        long s = sync.currentState();
+        return (s & WBIT) == 0L ? s & SBITS : 0L;
+    }
+    /**
+     * 校验戳发出之后有没有发生过写(只比较版本号和写锁标记)
+     * @param stamp-戳
+     * @title validate
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean validate(long stamp) {
+        //之前读取的数据必须在读state之前完成
+        Fences.loadFence();
+        return stamp != 0L && (stamp & SBITS) == (sync.currentState() & SBITS);
+    }
+    /**
+     * 释放写锁
+     * @param stamp-writeLock返回的戳
+     * @title unlockWrite
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlockWrite(long stamp) {
+        if (sync.currentState() != stamp || (stamp & WBIT) == 0L) {
+            throw new IllegalMonitorStateException();
+        }
+        sync.release(1);
+    }
+    /**
+     * 释放读锁
+     * @param stamp-readLock返回的戳
+     * @title unlockRead
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlockRead(long stamp) {
+        long s = sync.currentState();
+        if ((stamp & RBITS) == 0L || (stamp & SBITS) != (s & SBITS) || (s & RBITS) == 0L) {
+            throw new IllegalMonitorStateException();
+        }
+        sync.releaseShared(1);
+    }
+    /**
+     * 按戳的类型释放读锁或写锁
+     * @param stamp-戳
+     * @title unlock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlock(long stamp) {
+        if ((stamp & WBIT) != 0L) {
+            unlockWrite(stamp);
+        } else {
+            unlockRead(stamp);
+        }
+    }
+    /**
+     * 升级为写锁：已持有写锁直接返回；持有读锁并且是唯一的读线程，或者乐观读戳仍然有效并且没有读写锁时，原子地转为写锁
+     * @param stamp-戳
+     * @title tryConvertToWriteLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 新的写戳，失败返回0(原来持有的锁不变)
+     */
+    public long tryConvertToWriteLock(long stamp) {
+        long a = stamp & ABITS;
+        for (;;) {
+            long s = sync.currentState();
+            if ((s & SBITS) != (stamp & SBITS)) {
+                return 0L;
+            }
+            if (a == WBIT) {
+                //已经持有写锁
+                return s == stamp ? stamp : 0L;
+            }
+            long readers = s & RBITS;
+            if (a == 0L) {
+                //乐观读戳：没有任何锁时加写锁
+                if (readers != 0L) {
+                    return 0L;
+                }
+                if (sync.casState(s, s + WBIT)) {
+                    return s + WBIT;
+                }
+            } else {
+                //读戳：只有自己一个读线程时把读锁换成写锁
+                if (readers != RUNIT) {
+                    return 0L;
+                }
+                if (sync.casState(s, s - RUNIT + WBIT)) {
+                    return s - RUNIT + WBIT;
+                }
+            }
+        }
+    }
+    /**
+     * 降级为读锁：写锁转为读锁(版本号加1并唤醒排队的读线程)，乐观读戳有效时加读锁，已持有读锁直接返回
+     * @param stamp-戳
+     * @title tryConvertToReadLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 新的读戳，失败返回0
+     */
+    public long tryConvertToReadLock(long stamp) {
+        long a = stamp & ABITS;
+        for (;;) {
+            long s = sync.currentState();
+            if ((s & SBITS) != (stamp & SBITS)) {
+                return 0L;
+            }
+            if (a == WBIT) {
+                if (s != stamp) {
+                    return 0L;
+                }
+                //释放写锁(进位使版本号加1)的同时加一个读锁
+                long next = s + WBIT + RUNIT;
+                sync.setStateAndWakeReaders(next);
+                return next;
+            }
+            if (a != 0L) {
+                return stamp;
+            }
+            if ((s & RBITS) == RBITS) {
+                return 0L;
+            }
+            if (sync.casState(s, s + RUNIT)) {
+                return s + RUNIT;
+            }
+        }
+    }
+    /**
+     * 释放持有的锁，返回释放后的乐观读戳
+     * @param stamp-戳
+     * @title tryConvertToOptimisticRead
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long 失败返回0
+     */
+    public long tryConvertToOptimisticRead(long stamp) {
+        long a = stamp & ABITS;
+        long s = sync.currentState();
+        if ((s & SBITS) != (stamp & SBITS)) {
+            return 0L;
+        }
+        if (a == 0L) {
+            return stamp;
+        }
+        if (a == WBIT) {
+            if (s != stamp) {
+                return 0L;
+            }
+            sync.release(1);
+            //持有写锁时state就是stamp，释放后的state可以直接算出来，不能重新读取(可能已经被其他写线程拿走)
+            return unlockWriteState(stamp) & SBITS;
+        }
+        sync.releaseShared(1);
+        //持有读锁期间没有写，版本号不变
+        return stamp & SBITS;
+    }
+    /**
+     * 是否有线程持有写锁
+     * @title isWriteLocked
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean isWriteLocked() {
+        return (sync.currentState() & WBIT) != 0L;
+    }
+    /**
+     * 当前读锁个数
+     * @title getReadLockCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getReadLockCount() {
+        return (int) (sync.currentState() & RBITS);
+    }
+
+    /**
+     * 释放写锁之后的state：清除写锁标记，进位使版本号加1；版本号用完时回到ORIGIN
+     * @param s-持有写锁时的state
+     * @title unlockWriteState
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    private static long unlockWriteState(long s) {
+        long next = s + WBIT;
+        return next == 0L ? ORIGIN : next;
+    }
+
+    /**
+     * 真正的锁，独占模式是写锁，共享模式是读锁
+     * @author yuanfei0241@hsyuntai.com
+     * @version V1.0.0
+     * @title Sync
+     * @date 2026/10/17
+     */
+    static final class Sync extends AbstractQueuedLongSynchronizer {
+
+        private static final long serialVersionUID = 1L;
+
+        Sync() {
+            setState(ORIGIN);
+        }
+
+        long currentState() {
+            return getState();
+        }
+
+        boolean casState(long expect, long update) {
+            return compareAndSetState(expect, update);
+        }
+        /**
+         * 写锁直接降级为读锁：设置新的state后唤醒排队的读线程(调用方必须持有写锁)
+         * @param next-新的state
+         * @title setStateAndWakeReaders
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         */
+        void setStateAndWakeReaders(long next) {
+            setState(next);
+            //arg为0的releaseShared不修改state，只负责唤醒
+            releaseShared(0);
+        }
+
+        @Override
+        protected boolean tryAcquire(long acquires) {
+            long s = getState();
+            return (s & ABITS) == 0L && compareAndSetState(s, s + WBIT);
+        }
+
+        @Override
+        protected boolean tryRelease(long releases) {
+            setState(unlockWriteState(getState()));
+            return true;
+        }
+
+        @Override
+        protected long tryAcquireShared(long acquires) {
+            for (;;) {
+                long s = getState();
+                if ((s & WBIT) != 0L || (s & RBITS) == RBITS) {
+                    return -1L;
+                }
+                //前面有排队的线程(通常是写线程)时让它先来，避免写线程饿死
+                if (hasQueuedPredecessors()) {
+                    return -1L;
+                }
+                if (compareAndSetState(s, s + RUNIT)) {
+                    return 1L;
+                }
+            }
+        }
+
+        @Override
+        protected boolean tryReleaseShared(long releases) {
+            if (releases == 0L) {
+                return true;
+            }
+            for (;;) {
+                long s = getState();
+                long next = s - RUNIT;
+                if (compareAndSetState(s, next)) {
+                    //最后一个读锁释放时唤醒排队的写线程
+                    return (next & RBITS) == 0L;
+                }
+            }
+        }
+    }
+}
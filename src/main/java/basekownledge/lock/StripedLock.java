@@ -0,0 +1,277 @@
+package basekownledge.lock;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 按key分段的锁表
+ * 固定个数(2的幂)的ReentrantLock，按key的哈希选一把，百万级的商品共用这一组锁，内存开销与商品数量无关；
+ * 不同商品只有落在同一段时才互相阻塞。
+ * 段的加锁状态(AQS的state)在段的Sync对象里，不在段对象本身，所以Sync和段的争用计数后面各填充了一个缓存行的long；
+ * 段和它的Sync是连续分配的(段、Sync、下一段、下一段的Sync…)，相邻段的state和争用计数之间至少隔着一个缓存行。
+ * JVM不保证对象在堆中的位置，GC移动对象后这个间隔可能被打乱，所以填充只能大幅减少伪共享，不能保证完全没有。
+ * 多个key一起加锁(商品之间调拨库存)时按段下标从小到大加锁、从大到小解锁，所有线程加锁顺序一致，不会死锁；
+ * 落在同一段的key只加一次锁。
+ * 每段记录加锁时锁已被其他线程持有的次数，用来判断段数是否够用以及是否存在热点商品。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title StripedLock
+ * @date 2026/10/17
+ */
+public class StripedLock {
+    /**
+     * 段
+     */
+    private final Stripe[] stripes;
+    /**
+     * 段数减1(段数是2的幂)
+     */
+    private final int mask;
+
+    public StripedLock() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+    /**
+     * 构造函数
+     * @param stripeCount-段数，向上取2的幂
+     */
+    public StripedLock(int stripeCount) {
+        if (stripeCount <= 0 || stripeCount > (1 << 24)) {
+            throw new IllegalArgumentException();
+        }
+        int n = Integer.highestOneBit(stripeCount);
+        if (n < stripeCount) {
+            n <<= 1;
+        }
+        mask = n - 1;
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    /**
+     * key所在段的下标
+     * @param key-key
+     * @title stripeOf
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int stripeOf(Object key) {
+        int h = key.hashCode();
+        //高位混入低位，避免连续的商品ID只用到低位
+        h ^= h >>> 16;
+        h *= 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    /**
+     * 对key所在段加锁
+     * @param key-key
+     * @title lock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void lock(Object key) {
+        stripes[stripeOf(key)].lockCounted();
+    }
+    /**
+     * 尝试对key所在段加锁，不等待
+     * @param key-key
+     * @title tryLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean tryLock(Object key) {
+        Stripe stripe = stripes[stripeOf(key)];
+        if (stripe.tryLock()) {
+            return true;
+        }
+        stripe.contended();
+        return false;
+    }
+    /**
+     * 在timeout指定的时间内对key所在段加锁，可以被中断
+     * @param key-key
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @title tryLock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 超时返回false
+     */
+    public boolean tryLock(Object key, long timeout, TimeUnit unit) throws InterruptedException {
+        Stripe stripe = stripes[stripeOf(key)];
+        if (stripe.tryLock()) {
+            return true;
+        }
+        stripe.contended();
+        return stripe.tryLock(timeout, unit);
+    }
+    /**
+     * 释放key所在段的锁
+     * @param key-key
+     * @title unlock
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlock(Object key) {
+        stripes[stripeOf(key)].unlock();
+    }
+    /**
+     * 对多个key所在的段按下标从小到大加锁，同一段只加一次
+     * @param keys-key
+     * @title lockAll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void lockAll(Object... keys) {
+        for (int i : orderedStripes(keys)) {
+            stripes[i].lockCounted();
+        }
+    }
+    /**
+     * 在timeout指定的时间内对多个key所在的段加锁，超时或者被中断时释放已经拿到的段
+     * @param timeout-等待时间
+     * @param unit-时间单位
+     * @param keys-key
+     * @title tryLockAll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 超时返回false
+     */
+    public boolean tryLockAll(long timeout, TimeUnit unit, Object... keys) throws InterruptedException {
+        int[] order = orderedStripes(keys);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int locked = 0;
+        try {
+            for (; locked < order.length; locked++) {
+                Stripe stripe = stripes[order[locked]];
+                if (!stripe.tryLock()) {
+                    stripe.contended();
+                    if (!stripe.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            if (locked < order.length) {
+                while (--locked >= 0) {
+                    stripes[order[locked]].unlock();
+                }
+            }
+        }
+        return locked == order.length;
+    }
+    /**
+     * 释放多个key所在段的锁(与lockAll的key相同)，按下标从大到小释放
+     * @param keys-key
+     * @title unlockAll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void unlockAll(Object... keys) {
+        int[] order = orderedStripes(keys);
+        for (int i = order.length - 1; i >= 0; i--) {
+            stripes[order[i]].unlock();
+        }
+    }
+    /**
+     * 段数
+     * @title getStripeCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+    /**
+     * 某一段加锁时锁已被其他线程持有的次数
+     * @param stripe-段下标
+     * @title getContentionCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long getContentionCount(int stripe) {
+        return stripes[stripe].contention;
+    }
+    /**
+     * 所有段的争用次数
+     * @title getContentionCounts
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long[] 下标是段下标
+     */
+    public long[] getContentionCounts() {
+        long[] counts = new long[stripes.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = stripes[i].contention;
+        }
+        return counts;
+    }
+    /**
+     * 多个key所在的段，去重后从小到大排序
+     * @param keys-key
+     * @title orderedStripes
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int[]
+     */
+    private int[] orderedStripes(Object[] keys) {
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = stripeOf(keys[i]);
+        }
+        Arrays.sort(order);
+        int n = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (n == 0 || order[i] != order[n - 1]) {
+                order[n++] = order[i];
+            }
+        }
+        return n == order.length ? order : Arrays.copyOf(order, n);
+    }
+
+    /**
+     * 段：ReentrantLock加上争用计数，后面填充一个缓存行，Sync使用PaddedSync
+     */
+    private static final class Stripe extends ReentrantLock {
+
+        private static final AtomicLongFieldUpdater<Stripe> CONTENTION =
+                AtomicLongFieldUpdater.newUpdater(Stripe.class, "contention");
+        /**
+         * 加锁时锁已被其他线程持有的次数，只在争用时写
+         */
+        volatile long contention;
+
+        long p1, p2, p3, p4, p5, p6, p7, p8;
+
+        Stripe() {
+            //Sync在段对象之后分配，紧跟在段的填充后面
+            super(new PaddedSync());
+        }
+
+        void lockCounted() {
+            if (!tryLock()) {
+                contended();
+                lock();
+            }
+        }
+
+        void contended() {
+            CONTENTION.incrementAndGet(this);
+        }
+    }
+
+    /**
+     * 后面填充一个缓存行的非公平Sync：AQS的state、等待队列的head/tail都是Sync的字段，
+     * 子类的字段排在父类字段之后，填充只能加在这些字段的后面，前面靠同一段的Stripe的填充隔开
+     */
+    private static final class PaddedSync extends ReentrantLock.NoFairSync {
+
+        long p1, p2, p3, p4, p5, p6, p7, p8;
+    }
+}
@@ -0,0 +1,18 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 拒绝策略：抛出RejectedExecutionException，由提交者自己处理
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title AbortPolicy
+ * @date 2026/10/17
+ */
+public class AbortPolicy implements RejectedExecutionHandler {
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        throw new RejectedExecutionException("任务" + r + "被线程池拒绝!");
+    }
+}
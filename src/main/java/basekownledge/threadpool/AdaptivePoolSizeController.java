@@ -0,0 +1,214 @@
+package basekownledge.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 线程池大小自适应控制器(爬山法)
+ * 按固定周期采样线程池的吞吐量(完成+失败的任务数)和这一周期内的平均排队时间：
+ * 1：平均排队时间超过目标值并且队列中有积压时，核心线程数增加一步；
+ *    如果上一次增加线程后吞吐量反而下降(超过容忍度)，说明已经越过拐点，改为回退一步
+ * 2：平均排队时间低于目标值的一半并且有空闲线程时，核心线程数减少一步，多出来的线程按keepAliveTime超时退出
+ * 核心线程数始终限制在[minCoreSize, maxCoreSize]之间，必要时同步调大最大线程数
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title AdaptivePoolSizeController
+ * @date 2026/10/17
+ */
+public class AdaptivePoolSizeController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptivePoolSizeController.class);
+    /**
+     * 吞吐量下降的容忍度(10%以内视为噪声)
+     */
+    private static final double THROUGHPUT_TOLERANCE = 0.1D;
+    /**
+     * 被控制的线程池
+     */
+    private final ThreadPoolExecutor pool;
+    /**
+     * 核心线程数下限
+     */
+    private final int minCoreSize;
+    /**
+     * 核心线程数上限
+     */
+    private final int maxCoreSize;
+    /**
+     * 每次调整的步长
+     */
+    private final int step;
+    /**
+     * 采样周期(纳秒)
+     */
+    private final long periodNanos;
+    /**
+     * 目标平均排队时间(纳秒)
+     */
+    private final long targetQueueWaitNanos;
+    /**
+     * 采样线程
+     */
+    private volatile Thread sampler;
+    /**
+     * 采样或调整抛出异常的次数
+     */
+    private volatile long failureCount;
+    /**
+     * 上一次采样时已结束的任务数
+     */
+    private long lastFinished;
+    /**
+     * 上一次采样时排队时间直方图的次数和总和
+     */
+    private long lastWaitCount;
+
+    private long lastWaitSum;
+    /**
+     * 上一次采样的时间
+     */
+    private long lastSampleNanos;
+    /**
+     * 上一个周期的吞吐量(任务数/秒)
+     */
+    private double lastThroughput;
+    /**
+     * 上一次调整的方向：1增加，-1减少，0不变
+     */
+    private int lastMove;
+
+    /**
+     * 构造函数
+     * @param pool-线程池
+     * @param minCoreSize-核心线程数下限
+     * @param maxCoreSize-核心线程数上限
+     * @param step-每次调整的步长
+     * @param period-采样周期
+     * @param targetQueueWait-目标平均排队时间
+     * @param unit-采样周期和排队时间的单位
+     */
+    public AdaptivePoolSizeController(ThreadPoolExecutor pool, int minCoreSize, int maxCoreSize, int step
+            , long period, long targetQueueWait, TimeUnit unit) {
+        if (null == pool || null == unit) {
+            throw new NullPointerException();
+        }
+        if (minCoreSize < 0 || maxCoreSize < minCoreSize || maxCoreSize == 0 || step <= 0
+                || period <= 0 || targetQueueWait <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.pool = pool;
+        this.minCoreSize = minCoreSize;
+        this.maxCoreSize = maxCoreSize;
+        this.step = step;
+        this.periodNanos = unit.toNanos(period);
+        this.targetQueueWaitNanos = unit.toNanos(targetQueueWait);
+    }
+    /**
+     * 启动控制器(后台守护线程按周期采样)
+     * @title start
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public synchronized void start() {
+        if (sampler != null) {
+            return;
+        }
+        ThreadPoolMetrics.Snapshot s = pool.getMetricsSnapshot();
+        lastFinished = s.getCompletedCount() + s.getFailedCount();
+        lastWaitCount = s.getQueueWait().getCount();
+        lastWaitSum = s.getQueueWait().getSum();
+        lastSampleNanos = System.nanoTime();
+        Thread t = new Thread(this::runLoop, "adaptive-pool-size-controller");
+        t.setDaemon(true);
+        sampler = t;
+        t.start();
+    }
+    /**
+     * 停止控制器，线程池保持最后一次调整的大小
+     * @title stop
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public synchronized void stop() {
+        Thread t = sampler;
+        sampler = null;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    private void runLoop() {
+        Thread self = Thread.currentThread();
+        while (sampler == self && !pool.isShutdown()) {
+            LockSupport.parkNanos(this, periodNanos);
+            if (sampler != self) {
+                break;
+            }
+            try {
+                sample();
+            } catch (RuntimeException e) {
+                //线程池被关闭或者参数被外部改乱了，记录之后下一个周期再试
+                failureCount++;
+                LOGGER.warn("线程池大小调整失败,累计失败:{}次", failureCount, e);
+            }
+        }
+    }
+    /**
+     * 采样或调整抛出异常的次数
+     * @title getFailureCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+    /**
+     * 采样一次并调整核心线程数
+     * @title sample
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    void sample() {
+        ThreadPoolMetrics.Snapshot s = pool.getMetricsSnapshot();
+        long now = System.nanoTime();
+        long finished = s.getCompletedCount() + s.getFailedCount();
+        long waitCount = s.getQueueWait().getCount();
+        long waitSum = s.getQueueWait().getSum();
+        double seconds = Math.max(1L, now - lastSampleNanos) / 1e9D;
+        double throughput = (finished - lastFinished) / seconds;
+        long waitMean = waitCount > lastWaitCount ? (waitSum - lastWaitSum) / (waitCount - lastWaitCount) : 0L;
+        lastFinished = finished;
+        lastWaitCount = waitCount;
+        lastWaitSum = waitSum;
+        lastSampleNanos = now;
+
+        int core = pool.getCoreThreadSize();
+        int next = core;
+        if (waitMean > targetQueueWaitNanos && s.getQueueSize() > 0) {
+            if (lastMove > 0 && throughput < lastThroughput * (1D - THROUGHPUT_TOLERANCE)) {
+                next = core - step;
+            } else {
+                next = core + step;
+            }
+        } else if (waitMean < targetQueueWaitNanos / 2 && s.getActiveCount() < core) {
+            next = core - step;
+        }
+        next = Math.max(minCoreSize, Math.min(maxCoreSize, next));
+        if (next > pool.getMaxThreadSize()) {
+            pool.setMaxThreadSize(next);
+        }
+        if (next != core) {
+            pool.setCoreThreadSize(next);
+        }
+        lastMove = Integer.signum(next - core);
+        lastThroughput = throughput;
+    }
+
+    public boolean isRunning() {
+        return sampler != null;
+    }
+}
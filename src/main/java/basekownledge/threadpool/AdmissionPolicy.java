@@ -0,0 +1,32 @@
+package basekownledge.threadpool;
+
+/**
+ * 准入策略：任务提交时先判断是否接收，不接收的任务直接交给拒绝策略，即使队列还有空间
+ * 用来在过载时提前拒绝注定会超时的任务，而不是让它们在队列中排队
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title AdmissionPolicy
+ * @date 2026/10/17
+ */
+public interface AdmissionPolicy {
+
+    /**
+     * 判断是否接收任务(在提交任务的线程中调用，需要足够轻量)
+     * @param command-任务
+     * @param executor-线程池
+     * @title admit
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    boolean admit(Runnable command, ThreadPoolExecutor executor);
+    /**
+     * worker从队列取出任务时回调，通知该任务在队列中的停留时间
+     * @param sojournNanos-停留时间(纳秒)
+     * @title onDequeue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    default void onDequeue(long sojournNanos) {
+    }
+}
@@ -0,0 +1,49 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拒绝策略：提交线程阻塞等待队列腾出空间，最多等待timeout，超时(或者线程池已经关闭、等待时被中断)则抛出RejectedExecutionException
+ * 相比CallerRunsPolicy，任务仍然由worker执行，提交者只是被限速；超时上限保证提交者不会被无限期卡住
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title BlockingSubmitPolicy
+ * @date 2026/10/17
+ */
+public class BlockingSubmitPolicy implements RejectedExecutionHandler {
+    /**
+     * 最长等待时间(纳秒)
+     */
+    private final long timeoutNanos;
+
+    /**
+     * 构造函数
+     * @param timeout-最长等待时间
+     * @param unit-时间单位
+     */
+    public BlockingSubmitPolicy(long timeout, TimeUnit unit) {
+        if (null == unit) {
+            throw new NullPointerException();
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("线程池已关闭，任务" + r + "被拒绝!");
+        }
+        try {
+            if (!executor.enqueue(r, timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("任务" + r + "在" + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms内未能入队!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待入队时被中断，任务" + r + "被拒绝!", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package basekownledge.threadpool;
+
+/**
+ * 拒绝策略：由提交任务的线程自己执行(线程池已经关闭则丢弃)
+ * 提交者忙于执行任务期间不会再提交新任务，天然形成背压
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title CallerRunsPolicy
+ * @date 2026/10/17
+ */
+public class CallerRunsPolicy implements RejectedExecutionHandler {
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        if (!executor.isShutdown()) {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于CoDel(Controlled Delay)的准入策略：按队列停留时间而不是队列长度判断过载
+ * 1：worker每取出一个任务就上报它的停留时间，按interval分段统计每段的最小停留时间；
+ *    一整段里最小停留时间都超过target，说明队列里有消化不掉的积压(standing queue)，进入过载状态，
+ *    否则只是短暂的突发，退出过载状态
+ * 2：过载状态下，如果最近取出的任务停留时间超过2倍target(新任务大概率也要等这么久)，拒绝新提交的任务；
+ *    队列排空或者停留时间回落后恢复接收
+ * 这样突发流量可以正常排队，持续过载时则提前拒绝注定超时的任务，保证已接收任务的尾延迟有上界
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title CoDelAdmissionPolicy
+ * @date 2026/10/17
+ */
+public class CoDelAdmissionPolicy implements AdmissionPolicy {
+    /**
+     * 默认目标停留时间5ms
+     */
+    private static final long DEFAULT_TARGET_MILLIS = 5;
+    /**
+     * 默认统计区间100ms
+     */
+    private static final long DEFAULT_INTERVAL_MILLIS = 100;
+    /**
+     * 目标停留时间(纳秒)
+     */
+    private final long targetNanos;
+    /**
+     * 统计区间(纳秒)
+     */
+    private final long intervalNanos;
+    /**
+     * 当前统计区间的结束时间
+     */
+    private final AtomicLong intervalEnd;
+    /**
+     * 当前统计区间内的最小停留时间
+     */
+    private final AtomicLong minSojourn = new AtomicLong(Long.MAX_VALUE);
+    /**
+     * 最近一次取出的任务的停留时间
+     */
+    private volatile long lastSojourn;
+    /**
+     * 是否处于过载状态(上一个统计区间的最小停留时间超过target)
+     */
+    private volatile boolean overloaded;
+    /**
+     * 被拒绝的任务数
+     */
+    private final LongAdder shedCount = new LongAdder();
+
+    public CoDelAdmissionPolicy() {
+        this(DEFAULT_TARGET_MILLIS, DEFAULT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    /**
+     * 构造函数
+     * @param target-目标停留时间
+     * @param interval-统计区间(应当覆盖一个正常突发的持续时间，通常为target的10~20倍)
+     * @param unit-时间单位
+     */
+    public CoDelAdmissionPolicy(long target, long interval, TimeUnit unit) {
+        if (null == unit) {
+            throw new NullPointerException();
+        }
+        if (target <= 0 || interval <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.targetNanos = unit.toNanos(target);
+        this.intervalNanos = unit.toNanos(interval);
+        this.intervalEnd = new AtomicLong(System.nanoTime() + intervalNanos);
+    }
+
+    @Override
+    public boolean admit(Runnable command, ThreadPoolExecutor executor) {
+        if (!overloaded || lastSojourn <= 2 * targetNanos || executor.getQueueSize() == 0) {
+            return true;
+        }
+        shedCount.increment();
+        return false;
+    }
+
+    @Override
+    public void onDequeue(long sojournNanos) {
+        lastSojourn = sojournNanos;
+        long now = System.nanoTime();
+        long end = intervalEnd.get();
+        if (now - end >= 0 && intervalEnd.compareAndSet(end, now + intervalNanos)) {
+            //只有一个worker负责切换统计区间
+            overloaded = minSojourn.getAndSet(sojournNanos) > targetNanos;
+            return;
+        }
+        long m;
+        while (sojournNanos < (m = minSojourn.get()) && !minSojourn.compareAndSet(m, sojournNanos)) {
+            //并发更新最小值，失败重试
+        }
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+}
@@ -0,0 +1,16 @@
+package basekownledge.threadpool;
+
+/**
+ * 拒绝策略：直接丢弃任务(只在线程池的拒绝计数中体现)，适合可以丢失的任务
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title DiscardPolicy
+ * @date 2026/10/17
+ */
+public class DiscardPolicy implements RejectedExecutionHandler {
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        //丢弃
+    }
+}
@@ -1,5 +1,7 @@
 package basekownledge.threadpool;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Future;
 
 /**
@@ -30,6 +32,25 @@ public interface ExecutorService extends Executor{
      * @return Future<T>
      */
      <T> Future<T> submit(Runnable command,T result);
+     /**
+      * 批量执行任务，整批任务一次性准入：先补足核心线程，剩余任务一次性入队，放不下的再尝试创建非核心线程
+      * @param commands-任务集合(不能包含null)
+      * @title executeAll
+      * @author yuanfei0241@hsyuntai.com
+      * @since v1.0.0
+      * @return List<Runnable> 被拒绝的任务(不经过拒绝策略，由调用方处理)，全部接收时返回空集合
+      */
+     List<Runnable> executeAll(Collection<? extends Runnable> commands);
+     /**
+      * 批量提交任务(有返回值)，与executeAll一样一次性准入，被拒绝的任务对应的Future会被取消
+      * @param commands-任务集合(不能包含null)
+      * @param result-保存返回结果
+      * @title submitAll
+      * @author yuanfei0241@hsyuntai.com
+      * @since v1.0.0
+      * @return List<Future<T>> 与任务集合顺序一致
+      */
+     <T> List<Future<T>> submitAll(Collection<? extends Runnable> commands, T result);
      /**
       * 关闭线程池
       * @title shutdown
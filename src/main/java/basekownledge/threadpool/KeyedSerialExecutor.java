@@ -0,0 +1,202 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按key串行的执行器
+ * 同一个key的任务按提交顺序依次执行(FIFO)，不同key的任务在线程池中并行执行，不需要每个key一个线程，也不需要全局锁：
+ * 每个key对应一条轻量的任务通道(lane)，只有通道里有任务时才把通道作为一个任务交给线程池，
+ * 同一时刻一条通道最多只被一个worker执行，通道排空后从映射表中移除。
+ * 为了避免热点key长期占用worker，通道每次最多连续执行maxBatch个任务，之后重新排到线程池队列的末尾。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title KeyedSerialExecutor
+ * @date 2026/10/17
+ */
+public class KeyedSerialExecutor<K> {
+    /**
+     * 通道每次被调度时最多连续执行的任务数
+     */
+    private static final int DEFAULT_MAX_BATCH = 64;
+    /**
+     * 通道已退役(已排空并从映射表中移除)
+     */
+    private static final int RETIRED = -1;
+    /**
+     * 执行通道的线程池
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * 通道每次被调度时最多连续执行的任务数
+     */
+    private final int maxBatch;
+    /**
+     * key与通道的映射
+     */
+    private final ConcurrentHashMap<K, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     * @param executor-线程池
+     */
+    public KeyedSerialExecutor(ThreadPoolExecutor executor) {
+        this(executor, DEFAULT_MAX_BATCH);
+    }
+    /**
+     * 构造函数
+     * @param executor-线程池
+     * @param maxBatch-通道每次被调度时最多连续执行的任务数
+     */
+    public KeyedSerialExecutor(ThreadPoolExecutor executor, int maxBatch) {
+        if (null == executor) {
+            throw new NullPointerException();
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.executor = executor;
+        this.maxBatch = maxBatch;
+    }
+    /**
+     * 按key串行执行任务
+     * @param key-任务的key(例如商品ID)
+     * @param command-任务
+     * @title execute
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void execute(K key, Runnable command) {
+        if (null == key || null == command) {
+            throw new NullPointerException();
+        }
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("线程池已关闭!");
+        }
+        for (;;) {
+            Lane lane = lanes.computeIfAbsent(key, Lane::new);
+            int c = lane.pending.get();
+            if (c == RETIRED) {
+                //通道刚排空退役，帮它从映射表中移除后重新创建
+                lanes.remove(key, lane);
+                continue;
+            }
+            if (lane.pending.compareAndSet(c, c + 1)) {
+                lane.tasks.offer(command);
+                if (c == 0 && !schedule(lane)) {
+                    //通道从空变为非空，由本次提交负责调度；线程池拒绝时由当前线程直接执行通道
+                    lane.run();
+                }
+                return;
+            }
+        }
+    }
+    /**
+     * 按key串行提交任务(有返回值)
+     * @param key-任务的key
+     * @param command-任务
+     * @param result-保存返回结果
+     * @title submit
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Future<T>
+     */
+    public <T> Future<T> submit(K key, Runnable command, T result) {
+        FutureTask<T> fTask = new FutureTask<>(command, result);
+        execute(key, fTask);
+        return fTask;
+    }
+    /**
+     * 把通道交给线程池执行，不经过线程池的拒绝策略：
+     * DiscardPolicy、shutdown之后的CallerRunsPolicy、等待超时的BlockingSubmitPolicy都会静默丢掉通道，
+     * 通道的计数不会归零，这个key之后的任务将永远得不到执行，所以被拒绝时由调用方在当前线程继续执行通道
+     * @param lane-通道
+     * @title schedule
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 线程池是否接收了通道
+     */
+    private boolean schedule(Lane lane) {
+        return executor.tryExecute(lane);
+    }
+    /**
+     * 当前有任务的通道数
+     * @title getLaneCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * 某个key的任务通道
+     * @author yuanfei0241@hsyuntai.com
+     * @version V1.0.0
+     * @title Lane
+     * @date 2026/10/17
+     */
+    private final class Lane implements Runnable {
+
+        private final K key;
+        /**
+         * 通道中的任务
+         */
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        /**
+         * 已提交还没有执行完的任务数，RETIRED表示通道已退役。
+         * 从0变为1的提交线程负责把通道交给线程池，保证同一时刻只有一个worker执行这条通道
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Lane(K key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            Throwable failure = null;
+            for (int executed = 1; ; executed++) {
+                Runnable task;
+                //提交线程先计数后入队，计数大于0时任务可能还没有放进队列，稍等即可
+                while ((task = tasks.poll()) == null) {
+                    Thread.yield();
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    if (null == failure) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+                if (pending.decrementAndGet() == 0) {
+                    if (pending.compareAndSet(0, RETIRED)) {
+                        lanes.remove(key, this);
+                    }
+                    //CAS失败说明有新任务从0开始提交，提交线程已经重新调度了通道
+                    break;
+                }
+                if (null != failure || executed >= maxBatch) {
+                    //任务抛出异常或者本轮执行够了，把通道重新排到线程池队列末尾
+                    if (schedule(this)) {
+                        break;
+                    }
+                    //线程池拒绝了通道(已关闭或者饱和)，由当前线程继续执行，保证计数最终归零，异常在退出时再抛出
+                    executed = 0;
+                }
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+    }
+}
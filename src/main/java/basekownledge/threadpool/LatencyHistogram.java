@@ -0,0 +1,202 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图(HDR风格的对数-线性分桶)
+ * 小于64的值每个值一个桶，之后每翻一倍(一个数量级)再等分成32个桶，相对误差不超过1/32，
+ * 覆盖0到Long.MAX_VALUE纳秒。记录时只做下标计算和原子自增，不分配任何对象。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title LatencyHistogram
+ * @date 2026/10/17
+ */
+public class LatencyHistogram {
+    /**
+     * 线性区间的位数：[0, 64)每个值一个桶
+     */
+    private static final int SUB_BITS = 6;
+    /**
+     * 线性区间的桶数
+     */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    /**
+     * 之后每个数量级的桶数
+     */
+    private static final int HALF_COUNT = SUB_COUNT >> 1;
+    /**
+     * 总桶数(最高位为62时的最后一个桶 + 1)
+     */
+    private static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+    /**
+     * 各个桶的计数
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * 记录的总次数
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * 记录值的总和
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * 记录到的最大值
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值(负数按0处理)
+     * @param value-纳秒
+     * @title record
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            //并发更新最大值，失败重试
+        }
+    }
+    /**
+     * 获取直方图当前的快照
+     * @title snapshot
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, sum.sum(), max.get());
+    }
+
+    /**
+     * 计算值所在的桶下标
+     * @param value-非负的值
+     * @title indexOf
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        int top = (int) (value >>> shift);
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (top - HALF_COUNT);
+    }
+    /**
+     * 计算桶能表示的最大值
+     * @param index-桶下标
+     * @title upperBoundOf
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int k = index - SUB_COUNT;
+        int shift = k / HALF_COUNT + 1;
+        long top = k % HALF_COUNT + HALF_COUNT;
+        long upper = ((top + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * 直方图快照(不可变)
+     * @author yuanfei0241@hsyuntai.com
+     * @version V1.0.0
+     * @title Snapshot
+     * @date 2026/10/17
+     */
+    public static final class Snapshot {
+        /**
+         * 各个桶的计数
+         */
+        private final long[] counts;
+        /**
+         * 总次数(以各个桶计数之和为准)
+         */
+        private final long count;
+        /**
+         * 总和
+         */
+        private final long sum;
+        /**
+         * 最大值
+         */
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+        /**
+         * 平均值，没有记录时返回0
+         */
+        public double getMean() {
+            return count == 0 ? 0D : (double) sum / count;
+        }
+        /**
+         * 获取百分位数(返回所在桶的上界，不超过记录到的最大值)
+         * @param percentile-百分位，取值[0, 100]
+         * @title getPercentile
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         * @return long
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0D || percentile > 100D) {
+                throw new IllegalArgumentException();
+            }
+            if (count == 0) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(percentile / 100D * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + (long) getMean() + ", p50=" + getPercentile(50D)
+                    + ", p99=" + getPercentile(99D) + ", p999=" + getPercentile(99.9D) + ", max=" + max;
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package basekownledge.threadpool;
 
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.ThreadPoolExecutor;
-
-public class MyRejectHandler implements RejectedExecutionHandler {
-
-    @Override
-    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-
-    }
+/**
+ * 由提交任务的线程自己执行的拒绝策略，线程池饱和时给提交者施加背压
+ * 不是ThreadPoolUtil的默认策略(默认是AbortPolicy)，需要时显式传给线程池；
+ * 线程池已经shutdown时任务会被直接丢弃，不会执行也不会抛出异常
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title MyRejectHandler
+ * @date 2026/10/17
+ */
+public class MyRejectHandler extends CallerRunsPolicy {
 }
@@ -0,0 +1,41 @@
+package basekownledge.threadpool;
+
+import basekownledge.blockqueue.Prioritized;
+
+import java.util.concurrent.FutureTask;
+
+/**
+ * submit提交Prioritized任务时使用的FutureTask，保留原始任务的优先级和截止时间，过期被丢弃时取消Future
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title PrioritizedFutureTask
+ * @date 2026/10/17
+ */
+final class PrioritizedFutureTask<T> extends FutureTask<T> implements Prioritized {
+
+    private final Prioritized prioritized;
+
+    PrioritizedFutureTask(Runnable command, T result) {
+        super(command, result);
+        this.prioritized = (Prioritized) command;
+    }
+
+    @Override
+    public int getPriority() {
+        return prioritized.getPriority();
+    }
+
+    @Override
+    public long getDeadlineNanos() {
+        return prioritized.getDeadlineNanos();
+    }
+
+    @Override
+    public void onExpired() {
+        try {
+            prioritized.onExpired();
+        } finally {
+            cancel(false);
+        }
+    }
+}
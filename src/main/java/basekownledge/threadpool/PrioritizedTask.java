@@ -0,0 +1,88 @@
+package basekownledge.threadpool;
+
+import basekownledge.blockqueue.Prioritized;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带优先级和截止时间的任务，配合PriorityDeadlineBlockingQueue使用
+ * 过了截止时间还没有开始执行的任务会被队列丢弃；通过submit提交时对应的Future会被取消
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title PrioritizedTask
+ * @date 2026/10/17
+ */
+public final class PrioritizedTask implements Runnable, Prioritized {
+    /**
+     * 截止时间距离现在的上限(约146年)，超过的按没有截止时间处理，保证截止时间之间的差值不会溢出
+     */
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE >>> 1;
+    /**
+     * 原始任务
+     */
+    private final Runnable task;
+    /**
+     * 优先级(越小越先执行)
+     */
+    private final int priority;
+    /**
+     * 截止时间(System.nanoTime())
+     */
+    private final long deadlineNanos;
+
+    private PrioritizedTask(Runnable task, int priority, long deadlineNanos) {
+        if (null == task) {
+            throw new NullPointerException();
+        }
+        this.task = task;
+        this.priority = priority;
+        this.deadlineNanos = deadlineNanos;
+    }
+    /**
+     * 创建只有优先级、没有截止时间的任务
+     * @param task-任务
+     * @param priority-优先级(越小越先执行)
+     * @title of
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return PrioritizedTask
+     */
+    public static PrioritizedTask of(Runnable task, int priority) {
+        return new PrioritizedTask(task, priority, NO_DEADLINE);
+    }
+    /**
+     * 创建带截止时间的任务，截止时间为当前时间 + timeout，timeout超过MAX_TIMEOUT_NANOS时没有截止时间
+     * @param task-任务
+     * @param priority-优先级(越小越先执行)
+     * @param timeout-距离截止时间的时长
+     * @param unit-时间单位
+     * @title of
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return PrioritizedTask
+     */
+    public static PrioritizedTask of(Runnable task, int priority, long timeout, TimeUnit unit) {
+        long nanos = unit.toNanos(timeout);
+        if (nanos >= MAX_TIMEOUT_NANOS) {
+            return new PrioritizedTask(task, priority, NO_DEADLINE);
+        }
+        long deadline = System.nanoTime() + nanos;
+        //nanoTime是任意起点，相加的结果可能恰好等于NO_DEADLINE
+        return new PrioritizedTask(task, priority, deadline == NO_DEADLINE ? deadline - 1 : deadline);
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+}
@@ -0,0 +1,74 @@
+package basekownledge.threadpool;
+
+import basekownledge.blockqueue.Prioritized;
+
+import java.io.Serializable;
+
+/**
+ * 进入队列的任务包装，记录入队时间，worker取出后据此统计排队时间
+ * 原始任务实现了Prioritized时，优先级、截止时间以及过期回调都委托给原始任务，优先级队列看到的排序键不变
+ * 原始任务可以序列化时包装也可以序列化，SpillingBlockingQueue才能把它溢出到磁盘
+ * 过期被队列丢弃时计入线程池指标；指标不参与序列化，从磁盘读回的任务过期时只回调原始任务
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title QueuedTask
+ * @date 2026/10/17
+ */
+final class QueuedTask implements Runnable, Prioritized, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * 原始任务
+     */
+    final Runnable task;
+    /**
+     * 入队时间(System.nanoTime())
+     */
+    final long enqueueNanos;
+    /**
+     * 线程池指标
+     */
+    private final transient ThreadPoolMetrics metrics;
+
+    QueuedTask(Runnable task, long enqueueNanos, ThreadPoolMetrics metrics) {
+        this.task = task;
+        this.enqueueNanos = enqueueNanos;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+
+    @Override
+    public int getPriority() {
+        return task instanceof Prioritized ? ((Prioritized) task).getPriority() : DEFAULT_PRIORITY;
+    }
+
+    @Override
+    public long getDeadlineNanos() {
+        return task instanceof Prioritized ? ((Prioritized) task).getDeadlineNanos() : NO_DEADLINE;
+    }
+
+    @Override
+    public void onExpired() {
+        if (null != metrics) {
+            metrics.recordExpired();
+        }
+        if (task instanceof Prioritized) {
+            ((Prioritized) task).onExpired();
+        }
+    }
+    /**
+     * 取出原始任务
+     * @param r-任务(可能是包装过的)
+     * @title unwrap
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Runnable
+     */
+    static Runnable unwrap(Runnable r) {
+        return r instanceof QueuedTask ? ((QueuedTask) r).task : r;
+    }
+}
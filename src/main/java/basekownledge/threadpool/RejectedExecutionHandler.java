@@ -0,0 +1,21 @@
+package basekownledge.threadpool;
+
+/**
+ * 拒绝策略：线程池已满(队列已满并且线程数达到最大值)、已经关闭或者准入策略拒绝时，由它处理被拒绝的任务
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title RejectedExecutionHandler
+ * @date 2026/10/17
+ */
+public interface RejectedExecutionHandler {
+
+    /**
+     * 处理被拒绝的任务(在提交任务的线程中调用)
+     * @param r-被拒绝的任务
+     * @param executor-线程池
+     * @title rejectedExecution
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    void rejectedExecution(Runnable r, ThreadPoolExecutor executor);
+}
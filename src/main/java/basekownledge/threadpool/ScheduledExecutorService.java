@@ -0,0 +1,52 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支持延迟/周期执行的线程池接口
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title ScheduledExecutorService
+ * @date 2026/10/17
+ */
+public interface ScheduledExecutorService extends ExecutorService {
+
+    /**
+     * 延迟执行任务
+     * @param command-任务
+     * @param delay-延迟时间
+     * @param unit-时间单位
+     * @title schedule
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ScheduledFuture<?>
+     */
+    ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit);
+    /**
+     * 按固定频率周期执行任务，第n次执行的时间为initialDelay + n * period，
+     * 某次执行抛出异常后不再继续执行
+     * @param command-任务
+     * @param initialDelay-首次执行的延迟时间
+     * @param period-周期
+     * @param unit-时间单位
+     * @title scheduleAtFixedRate
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ScheduledFuture<?>
+     */
+    ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit);
+    /**
+     * 按固定间隔周期执行任务，上一次执行结束后间隔delay再执行下一次，
+     * 某次执行抛出异常后不再继续执行
+     * @param command-任务
+     * @param initialDelay-首次执行的延迟时间
+     * @param delay-间隔
+     * @param unit-时间单位
+     * @title scheduleWithFixedDelay
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ScheduledFuture<?>
+     */
+    ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit);
+}
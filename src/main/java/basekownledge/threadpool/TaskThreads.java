@@ -0,0 +1,46 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 每任务一个线程的执行器所用的线程工厂(Java 8版本：平台线程)
+ * JDK 21及以上运行时由多版本jar中META-INF/versions/21下的同名类替换为虚拟线程版本(源码在src/main/java21)，
+ * 两个版本的方法签名必须保持一致
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title TaskThreads
+ * @date 2026/10/17
+ */
+final class TaskThreads {
+
+    private TaskThreads() {
+    }
+    /**
+     * 是否使用虚拟线程(不能定义成常量，否则会被内联到调用方，多版本替换后不生效)
+     * @title isVirtual
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    static boolean isVirtual() {
+        return false;
+    }
+    /**
+     * 创建线程工厂，线程名为namePrefix加序号
+     * 平台线程设为守护线程，与虚拟线程(总是守护线程)的行为保持一致
+     * @param namePrefix-线程名前缀
+     * @title newFactory
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ThreadFactory
+     */
+    static ThreadFactory newFactory(String namePrefix) {
+        final AtomicLong sequence = new AtomicLong();
+        return r -> {
+            Thread t = new Thread(r, namePrefix + sequence.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
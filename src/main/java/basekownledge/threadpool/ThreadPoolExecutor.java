@@ -1,8 +1,18 @@
 package basekownledge.threadpool;
 
-import java.util.HashSet;
+import basekownledge.blockqueue.BlockingQueue;
+import basekownledge.blockqueue.HandoffBlockingQueue;
+import basekownledge.blockqueue.IdleStrategy;
+import basekownledge.blockqueue.ParkIdleStrategy;
+import basekownledge.blockqueue.Prioritized;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -38,9 +48,13 @@ public class ThreadPoolExecutor implements ExecutorService {
      */
     private final BlockingQueue<Runnable> taskQueue;
     /**
-     * 工作线程
+     * taskQueue是HandoffBlockingQueue时的引用，有空闲worker在等待时提交的任务直接交给它
+     */
+    private final HandoffBlockingQueue<Runnable> handoffQueue;
+    /**
+     * 工作线程(无锁登记表，登记/注销都不需要加锁)
      */
-    private final HashSet<Worker> workers = new HashSet<>();
+    private final WorkerRegistry<Worker> workers = new WorkerRegistry<>();
     /**
      * 线程工厂
      */
@@ -48,11 +62,47 @@ public class ThreadPoolExecutor implements ExecutorService {
     /**
      * 拒绝策略
      */
-    private RejectedExecutionHandler rejectedHandler;
+    private volatile RejectedExecutionHandler rejectedHandler;
     /**
-     * 锁
+     * 准入策略(默认为null，即只要队列和线程数允许就接收)
+     */
+    private volatile AdmissionPolicy admissionPolicy;
+    /**
+     * 锁(只用来串行化shutdown)
      */
     private final ReentrantLock mainLock = new ReentrantLock();
+    /**
+     * worker每次从任务队列批量获取的任务数(默认1，即每次只取一个任务)
+     */
+    private volatile int taskBatchSize = 1;
+    /**
+     * 队列为空时worker的空闲策略(默认直接阻塞等待)
+     */
+    private volatile IdleStrategy idleStrategy = new ParkIdleStrategy();
+    /**
+     * 是否开启工作窃取模式(默认false，所有worker共用taskQueue)
+     */
+    private final boolean workStealing;
+    /**
+     * 工作窃取模式下每个worker本地队列的容量(与任务队列的容量一致)
+     */
+    private final int localQueueCapacity;
+    /**
+     * 工作窃取模式下处于空闲(park)状态的worker数量
+     */
+    private final AtomicInteger idleWorkerCount = new AtomicInteger();
+    /**
+     * 外部线程轮询分发任务的游标
+     */
+    private final AtomicInteger dispatchIndex = new AtomicInteger();
+    /**
+     * 当前线程对应的worker(只在工作窃取模式下设置)
+     */
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+    /**
+     * 运行指标
+     */
+    private final ThreadPoolMetrics metrics = new ThreadPoolMetrics();
 
     private static final RuntimePermission shutdownPerm = new RuntimePermission("modifyThread");
     /**
@@ -120,6 +170,19 @@ public class ThreadPoolExecutor implements ExecutorService {
     public ThreadPoolExecutor(int coreThreadSize,int maxThreadSize,long keepAliveTime
             ,TimeUnit unit,ThreadFactory threadFactory,BlockingQueue<Runnable> taskQueue
             ,RejectedExecutionHandler rejectedHandler,Boolean allowShutdownCoreThreadTimeOut){
+        this(coreThreadSize,maxThreadSize,keepAliveTime,unit,threadFactory,taskQueue,rejectedHandler,allowShutdownCoreThreadTimeOut,false);
+    }
+
+    /**
+     * 可指定是否开启工作窃取模式的构造函数
+     * 开启后每个worker拥有自己的本地双端队列：worker线程内提交的任务压入自己队列的头部并从头部取出，
+     * 外部线程提交的任务轮询分发到各worker队列的尾部，空闲的worker从其他worker队列的尾部窃取任务，
+     * taskQueue只在本地队列已满或者还没有worker时作为溢出队列使用
+     * @param workStealing-是否开启工作窃取模式
+     */
+    public ThreadPoolExecutor(int coreThreadSize,int maxThreadSize,long keepAliveTime
+            ,TimeUnit unit,ThreadFactory threadFactory,BlockingQueue<Runnable> taskQueue
+            ,RejectedExecutionHandler rejectedHandler,Boolean allowShutdownCoreThreadTimeOut,boolean workStealing){
 
         if(coreThreadSize < 0 || maxThreadSize <= 0 || keepAliveTime <= 0){
             throw new IllegalArgumentException();
@@ -136,6 +199,9 @@ public class ThreadPoolExecutor implements ExecutorService {
         this.rejectedHandler = rejectedHandler;
         this.allowShutdownCoreThreadTimeOut = allowShutdownCoreThreadTimeOut;
         this.taskQueue = taskQueue;
+        this.handoffQueue = taskQueue instanceof HandoffBlockingQueue ? (HandoffBlockingQueue<Runnable>) taskQueue : null;
+        this.workStealing = workStealing;
+        this.localQueueCapacity = Math.max(1, taskQueue.length());
     }
 
     @Override
@@ -145,18 +211,140 @@ public class ThreadPoolExecutor implements ExecutorService {
 
     @Override
     public <T> Future<T> submit(Runnable command, T result) {
-        RunnableFuture<T> fTask = new FutureTask<>(command,result);
+        RunnableFuture<T> fTask = newTaskFor(command,result);
         execute(fTask);
         return fTask;
     }
+    /**
+     * 创建FutureTask，Prioritized任务保留优先级和截止时间
+     * @param command-任务
+     * @param result-保存返回结果
+     * @title newTaskFor
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return RunnableFuture<T>
+     */
+    private <T> RunnableFuture<T> newTaskFor(Runnable command, T result) {
+        if (null == command) {
+            throw new NullPointerException();
+        }
+        return command instanceof Prioritized ? new PrioritizedFutureTask<>(command, result) : new FutureTask<>(command, result);
+    }
+
+    @Override
+    public List<Runnable> executeAll(Collection<? extends Runnable> commands) {
+        if(null == commands){
+            throw new NullPointerException();
+        }
+        List<Runnable> tasks = new ArrayList<>(commands);
+        for (Runnable task : tasks) {
+            if (null == task) {
+                throw new NullPointerException();
+            }
+        }
+        metrics.recordSubmitted(tasks.size());
+        List<Runnable> rejected = new ArrayList<>();
+        AdmissionPolicy admission = admissionPolicy;
+        if (admission != null) {
+            List<Runnable> admitted = new ArrayList<>(tasks.size());
+            for (Runnable task : tasks) {
+                (admission.admit(task, this) ? admitted : rejected).add(task);
+            }
+            tasks = admitted;
+        }
+        if (workStealing) {
+            //工作窃取模式下任务本来就分散在各worker的本地队列中，逐个分发即可
+            for (Runnable task : tasks) {
+                if (!executeStealing(task)) {
+                    rejected.add(task);
+                }
+            }
+        } else {
+            admitBatch(tasks, rejected);
+        }
+        //被拒绝的任务交还给调用方处理，不再经过拒绝策略
+        for (int i = 0; i < rejected.size(); i++) {
+            metrics.recordRejected();
+        }
+        return rejected;
+    }
+
+    @Override
+    public <T> List<Future<T>> submitAll(Collection<? extends Runnable> commands, T result) {
+        if(null == commands){
+            throw new NullPointerException();
+        }
+        List<RunnableFuture<T>> fTasks = new ArrayList<>(commands.size());
+        for (Runnable command : commands) {
+            if (null == command) {
+                throw new NullPointerException();
+            }
+            fTasks.add(newTaskFor(command, result));
+        }
+        for (Runnable rejected : executeAll(fTasks)) {
+            ((Future<?>) rejected).cancel(false);
+        }
+        return new ArrayList<Future<T>>(fTasks);
+    }
+    /**
+     * 一次性准入一批任务
+     * 1：工作线程数 < 核心线程数时，用批次头部的任务直接创建核心线程
+     * 2：剩余任务通过offerAll一次性入队(只加一次锁，最多唤醒入队个数的worker)
+     * 3：队列放不下的任务逐个尝试创建非核心线程，失败则记为拒绝
+     * @param tasks-任务
+     * @param rejected-保存被拒绝的任务
+     * @title admitBatch
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void admitBatch(List<Runnable> tasks, List<Runnable> rejected) {
+        int i = 0;
+        int size = tasks.size();
+        int c = ctl.get();
+        while (i < size && workerCountOf(c) < coreThreadSize && addWorker(tasks.get(i), true)) {
+            i++;
+            c = ctl.get();
+        }
+        if (i == size) {
+            return;
+        }
+        int queued = 0;
+        long now = System.nanoTime();
+        List<Runnable> rest = new ArrayList<>(size - i);
+        for (Runnable task : tasks.subList(i, size)) {
+            rest.add(new QueuedTask(task, now, metrics));
+        }
+        if (isRunning(c)) {
+            queued = taskQueue.offerAll(rest);
+            if (queued > 0) {
+                int recheck = ctl.get();
+                if (!isRunning(recheck)) {
+                    //入队后线程池被关闭了，把还能移除的任务撤回来拒绝掉
+                    for (Runnable task : rest.subList(0, queued)) {
+                        if (remove(task)) {
+                            rejected.add(QueuedTask.unwrap(task));
+                        }
+                    }
+                } else if (workerCountOf(recheck) == 0) {
+                    addWorker(null, false);
+                }
+            }
+        }
+        for (Runnable task : rest.subList(queued, rest.size())) {
+            Runnable command = QueuedTask.unwrap(task);
+            if (!addWorker(command, false)) {
+                rejected.add(command);
+            }
+        }
+    }
 
     @Override
     public void shutdown() {
         final ReentrantLock mainLock = this.mainLock;
         mainLock.lock();
         try {
-            //将线程池状态设置为shutdown
-            ctl.compareAndSet(ctl.get(), ctlOf(SHUTDOWN, workerCountOf(ctl.get())));
+            //将线程池状态设置为shutdown(CAS失败说明工作线程数变了，重试)
+            advanceRunState(SHUTDOWN);
             //检查调用shutdown的线程是否有权限操作线程池
             checkShutdownAccess();
             //尝试中断所有线程
@@ -173,22 +361,32 @@ public class ThreadPoolExecutor implements ExecutorService {
      * @return
      */
     private void interruptIdleWorkers() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            for (Worker w : workers) {
-                Thread t = w.thread;
-                if (!t.isInterrupted() && w.tryLock()) {
-                    try {
-                        t.interrupt();
-                    } catch (SecurityException ignore) {
-                    } finally {
-                        w.unlock();
-                    }
+        //shutdown先修改状态再遍历：遍历时没有看到的worker是状态修改之后才登记的，它自己会看到SHUTDOWN
+        for (Worker w : workers) {
+            Thread t = w.thread;
+            if (!t.isInterrupted() && w.tryLock()) {
+                try {
+                    t.interrupt();
+                } catch (SecurityException ignore) {
+                } finally {
+                    w.unlock();
                 }
             }
-        } finally {
-            mainLock.unlock();
+        }
+    }
+    /**
+     * 把线程池状态推进到targetState(已经达到则不变)
+     * @param targetState-目标状态
+     * @title advanceRunState
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void advanceRunState(int targetState) {
+        for (;;) {
+            int c = ctl.get();
+            if (runStateOf(c) >= targetState || ctl.compareAndSet(c, ctlOf(targetState, workerCountOf(c)))) {
+                break;
+            }
         }
     }
     /**
@@ -202,14 +400,8 @@ public class ThreadPoolExecutor implements ExecutorService {
         SecurityManager security = System.getSecurityManager();
         if (security != null) {
             security.checkPermission(shutdownPerm);
-            final ReentrantLock mainLock = this.mainLock;
-            mainLock.lock();
-            try {
-                for (Worker w : workers) {
-                    security.checkAccess(w.thread);
-                }
-            } finally {
-                mainLock.unlock();
+            for (Worker w : workers) {
+                security.checkAccess(w.thread);
             }
         }
     }
@@ -218,12 +410,262 @@ public class ThreadPoolExecutor implements ExecutorService {
     public boolean isShutdown() {
         return (0 == runStateOf(ctl.get()));
     }
+    /**
+     * 设置worker每次从任务队列批量获取的任务数
+     * 大于1时，worker被唤醒后通过pollBatch一次加锁取走一批任务放到自己的缓冲区中依次执行，
+     * 适合大量短任务的场景；批次越大，任务在worker之间分布越不均匀
+     * @param taskBatchSize-批量大小
+     * @title setTaskBatchSize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void setTaskBatchSize(int taskBatchSize) {
+        if (taskBatchSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.taskBatchSize = taskBatchSize;
+    }
+
+    public int getTaskBatchSize() {
+        return taskBatchSize;
+    }
+    /**
+     * 设置worker的空闲策略，队列为空时worker先按策略空转/让出CPU，策略放弃后再阻塞等待
+     * 延迟敏感的线程池可以用空转换取微秒级的任务交接，代价是空闲worker占用CPU；
+     * 空转期间worker同样按keepAliveTime超时退出，shutdown时通过中断结束空转
+     * @param idleStrategy-空闲策略
+     * @title setIdleStrategy
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void setIdleStrategy(IdleStrategy idleStrategy) {
+        if (null == idleStrategy) {
+            throw new NullPointerException();
+        }
+        this.idleStrategy = idleStrategy;
+    }
+
+    public IdleStrategy getIdleStrategy() {
+        return idleStrategy;
+    }
+    /**
+     * 设置拒绝策略
+     * @param rejectedHandler-拒绝策略
+     * @title setRejectedExecutionHandler
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void setRejectedExecutionHandler(RejectedExecutionHandler rejectedHandler) {
+        if (null == rejectedHandler) {
+            throw new NullPointerException();
+        }
+        this.rejectedHandler = rejectedHandler;
+    }
+
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        return rejectedHandler;
+    }
+    /**
+     * 设置准入策略，被准入策略拒绝的任务交给拒绝策略处理
+     * @param admissionPolicy-准入策略，null表示不做准入控制
+     * @title setAdmissionPolicy
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void setAdmissionPolicy(AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+    /**
+     * 获取任务队列中的任务数(不包括工作窃取模式下各worker本地队列中的任务)
+     * @title getQueueSize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getQueueSize() {
+        return taskQueue.size();
+    }
+    /**
+     * 调整核心线程数
+     * 调小时中断空闲的worker，多出来的线程会按keepAliveTime超时退出；
+     * 调大时如果队列中有积压的任务，立即补充新线程(最多补到积压的任务数)
+     * @param coreThreadSize-核心线程数
+     * @title setCoreThreadSize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void setCoreThreadSize(int coreThreadSize) {
+        if (coreThreadSize < 0 || coreThreadSize > maxThreadSize) {
+            throw new IllegalArgumentException();
+        }
+        int delta = coreThreadSize - this.coreThreadSize;
+        this.coreThreadSize = coreThreadSize;
+        if (workerCountOf(ctl.get()) > coreThreadSize) {
+            interruptIdleWorkers();
+        } else if (delta > 0) {
+            int k = Math.min(delta, taskQueue.size());
+            while (k-- > 0 && addWorker(null, true)) {
+                if (taskQueue.size() == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public int getCoreThreadSize() {
+        return coreThreadSize;
+    }
+    /**
+     * 调整最大线程数，不能小于核心线程数
+     * @param maxThreadSize-最大线程数
+     * @title setMaxThreadSize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void setMaxThreadSize(int maxThreadSize) {
+        if (maxThreadSize <= 0 || maxThreadSize < coreThreadSize) {
+            throw new IllegalArgumentException();
+        }
+        this.maxThreadSize = maxThreadSize;
+        if (workerCountOf(ctl.get()) > maxThreadSize) {
+            interruptIdleWorkers();
+        }
+    }
+
+    public int getMaxThreadSize() {
+        return maxThreadSize;
+    }
+    /**
+     * 调整空闲线程的存活时间，调小时中断空闲的worker让其按新的超时时间重新等待
+     * @param keepAliveTime-存活时间
+     * @param unit-时间单位
+     * @title setKeepAliveTime
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public void setKeepAliveTime(long keepAliveTime, TimeUnit unit) {
+        if (keepAliveTime <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (null == unit) {
+            throw new NullPointerException();
+        }
+        long delta = unit.toNanos(keepAliveTime) - this.unit.toNanos(this.keepAliveTime);
+        this.unit = unit;
+        this.keepAliveTime = keepAliveTime;
+        if (delta < 0) {
+            interruptIdleWorkers();
+        }
+    }
+
+    public long getKeepAliveTime(TimeUnit unit) {
+        return unit.convert(keepAliveTime, this.unit);
+    }
+    /**
+     * 获取当前工作线程数
+     * @title getPoolSize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getPoolSize() {
+        return workers.size();
+    }
+    /**
+     * 获取正在执行任务的线程数(worker执行任务时持有自己的锁)
+     * @title getActiveCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getActiveCount() {
+        int n = 0;
+        for (Worker w : workers) {
+            if (w.isLocked()) {
+                n++;
+            }
+        }
+        return n;
+    }
+    /**
+     * 获取运行指标(累计值，可以直接读取各个计数器和直方图)
+     * @title getMetrics
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ThreadPoolMetrics
+     */
+    public ThreadPoolMetrics getMetrics() {
+        return metrics;
+    }
+    /**
+     * 获取运行指标快照(包括当前工作线程数、活跃线程数以及队列中的任务数)
+     * @title getMetricsSnapshot
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ThreadPoolMetrics.Snapshot
+     */
+    public ThreadPoolMetrics.Snapshot getMetricsSnapshot() {
+        int queueSize = taskQueue.size();
+        if (workStealing) {
+            for (Worker w : workers) {
+                queueSize += w.localSize.get();
+            }
+        }
+        return metrics.snapshot(getPoolSize(), getActiveCount(), queueSize);
+    }
 
     @Override
     public void execute(Runnable command) {
+        if (!dispatch(command)) {
+            reject(command);
+        }
+    }
+    /**
+     * 提交任务，被拒绝时不执行拒绝策略而是返回false，由调用方自己处理
+     * (拒绝策略可能静默丢弃任务，需要确切知道任务有没有被接收的组件使用这个方法)
+     * @param command-任务
+     * @title tryExecute
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 任务是否被接收
+     */
+    boolean tryExecute(Runnable command) {
+        if (dispatch(command)) {
+            return true;
+        }
+        metrics.recordRejected();
+        return false;
+    }
+    /**
+     * 把任务交给worker或者放入队列
+     * @param command-任务
+     * @title dispatch
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 任务是否被接收，返回false时由调用方处理拒绝
+     */
+    private boolean dispatch(Runnable command) {
         if(null == command){
             throw new NullPointerException();
         }
+        metrics.recordSubmitted(1);
+        AdmissionPolicy admission = admissionPolicy;
+        if (admission != null && !admission.admit(command, this)) {
+            return false;
+        }
+        if(workStealing){
+            return executeStealing(command);
+        }
+        //有空闲worker在等待任务时直接交接，不经过缓冲队列，也不会在有空闲线程的情况下再创建核心线程
+        HandoffBlockingQueue<Runnable> handoff = handoffQueue;
+        if (handoff != null && handoff.hasWaitingConsumer() && isRunning(ctl.get())
+                && handoff.tryTransfer(new QueuedTask(command, System.nanoTime(), metrics))) {
+            return true;
+        }
         /**
          * 紧接着会进行如下三个步骤：
          *
@@ -246,28 +688,161 @@ public class ThreadPoolExecutor implements ExecutorService {
             //如果工作线程数 < 核心线程数
             if (addWorker(command, true)) {
                 //添加一个工作线程来运行任务，如果成功了，则直接返回
-                return;
+                return true;
             }
             //如果添加线程失败了，就再次获取线程池控制状态
             c = ctl.get();
         }
-        //如果线程池处理RUNNING状态，则尝试把任务添加到任务队列
-        if (isRunning(c) && taskQueue.offer(command)) {
+        //如果线程池处理RUNNING状态，则尝试把任务(记录入队时间)添加到任务队列
+        Runnable queued;
+        if (isRunning(c) && taskQueue.offer(queued = new QueuedTask(command, System.nanoTime(), metrics))) {
             // // 再次检查，获取线程池控制状态
             int recheck = ctl.get();
             //如果线程池已经不是RUNNING状态了，把任务从队列中移除，并执行拒绝任务策略
             //「可能线程池已经被关闭了」
-            if (!isRunning(recheck) && remove(command)){
-                reject(command);
+            if (!isRunning(recheck) && remove(queued)){
+                return false;
             }
-            //如果工作线程数为0，就添加一个新的工作线程
+            //如果工作线程数为0，就添加一个新的工作线程(任务已经在队列里了，新线程自己去队列取)
             //「因为旧线程可能已经被回收了，所以工作线程数可能为0」
-            else if(workerCountOf(recheck) == 0){
-                addWorker(command, false);
+            if(workerCountOf(recheck) == 0){
+                addWorker(null, false);
             }
-        }else if(!addWorker(command,false)){
-            //这个else if里面的addWorker就是添加非核心线程
-            reject(command);
+            return true;
+        }
+        //这里的addWorker就是添加非核心线程，失败时由调用方拒绝任务
+        return addWorker(command,false);
+    }
+
+    /**
+     * 工作窃取模式下的任务分发
+     * 1：worker线程内提交的任务直接压入自己本地队列的头部，不需要经过任何共享的锁
+     * 2：外部线程提交的任务，工作线程数 < 核心线程数时直接创建核心线程，否则轮询分发到各worker本地队列的尾部
+     * 3：本地队列已满或者还没有worker时，退回到taskQueue，再失败则尝试添加非核心线程
+     * @param command-任务
+     * @title executeStealing
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 任务是否被接收，返回false时由调用方执行拒绝策略
+     */
+    private boolean executeStealing(Runnable command) {
+        int c = ctl.get();
+        if (!isRunning(c)) {
+            return false;
+        }
+        Runnable queued = new QueuedTask(command, System.nanoTime(), metrics);
+        Worker self = currentWorker.get();
+        if (self != null && self.pushLocal(queued, true)) {
+            //自己会在当前任务结束后处理，其他空闲worker也可以过来窃取
+            signalIdleWorker(null);
+            return true;
+        }
+        if (workerCountOf(c) < coreThreadSize && addWorker(command, true)) {
+            return true;
+        }
+        Worker target = workers.next(dispatchIndex.getAndIncrement() & Integer.MAX_VALUE);
+        if (target != null) {
+            if (target.pushLocal(queued, false)) {
+                signalIdleWorker(target);
+                return true;
+            }
+        }
+        if (taskQueue.offer(queued)) {
+            signalIdleWorker(null);
+            if (workerCountOf(ctl.get()) == 0) {
+                addWorker(null, false);
+            }
+            return true;
+        }
+        return addWorker(command, false);
+    }
+    /**
+     * 唤醒一个空闲的worker，优先唤醒刚刚被分发任务的worker
+     * @param preferred-优先唤醒的worker，可以为null
+     * @title signalIdleWorker
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void signalIdleWorker(Worker preferred) {
+        if (idleWorkerCount.get() == 0) {
+            return;
+        }
+        if (preferred != null && preferred.idle) {
+            LockSupport.unpark(preferred.thread);
+            return;
+        }
+        for (Worker w : workers) {
+            if (w.idle) {
+                LockSupport.unpark(w.thread);
+                return;
+            }
+        }
+    }
+    /**
+     * 从其他worker本地队列的尾部窃取一个任务，从随机位置开始扫描避免所有空闲worker盯住同一个队列
+     * @param thief-窃取者
+     * @title steal
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Runnable
+     */
+    private Runnable steal(Worker thief) {
+        if (workers.size() <= 1) {
+            return null;
+        }
+        int n = workers.capacity();
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            Worker victim = workers.get((start + i) % n);
+            if (victim != null && victim != thief) {
+                Runnable r = victim.pollLocal(false);
+                if (r != null) {
+                    return r;
+                }
+            }
+        }
+        return null;
+    }
+    /**
+     * 检查是否还有待处理的任务(本地队列、其他worker的队列以及taskQueue)
+     * @param w-当前worker
+     * @title hasPendingTask
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    private boolean hasPendingTask(Worker w) {
+        if (w.localSize.get() > 0 || taskQueue.size() > 0) {
+            return true;
+        }
+        for (Worker other : workers) {
+            if (other.localSize.get() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * 退出的worker本地队列中如果还残留任务(退出前的竞争窗口内被分发进来的)，重新分发给其他worker
+     * @param w-退出的worker
+     * @title redistributeLocalTasks
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void redistributeLocalTasks(Worker w) {
+        Runnable r;
+        while ((r = w.pollLocal(true)) != null) {
+            Worker target = workers.next(dispatchIndex.getAndIncrement() & Integer.MAX_VALUE);
+            if (target != null && target.pushLocal(r, false)) {
+                signalIdleWorker(target);
+            } else if (taskQueue.offer(r)) {
+                signalIdleWorker(null);
+            } else if (!addWorker(r, false)) {
+                reject(QueuedTask.unwrap(r));
+            }
+        }
+        if (workerCountOf(ctl.get()) == 0 && taskQueue.size() > 0) {
+            addWorker(null, false);
         }
     }
 
@@ -282,7 +857,7 @@ public class ThreadPoolExecutor implements ExecutorService {
             //如果线程池状态不为RUNNING，那么当满足
             // 状态为SHUTDOWN并且任务为null，任务队列不为空的时候也跳过这个检查
             //「也就是说：如果线程池的状态SHUTDOWN时,它不接收新任务,但是会继续运行任务队列中的任务」
-            if (rs >= SHUTDOWN && !(rs == SHUTDOWN && firstTask == null && !workers.isEmpty())){
+            if (rs >= SHUTDOWN && !(rs == SHUTDOWN && firstTask == null && taskQueue.size() > 0)){
                 return false;
             }
             for (;;) {
@@ -311,25 +886,19 @@ public class ThreadPoolExecutor implements ExecutorService {
             //获取worker对应的线程
             final Thread t = w.thread;
             if (t != null) {
-                //如果线程不为null
-                final ReentrantLock mainLock = this.mainLock;
-                mainLock.lock();
-                try {
-                    //拿着锁重新检查池程池的状
-                    int rs = runStateOf(ctl.get());
-                    //线程池的状态为RUNNING或者(线程池的状态SHUTDOWN并且提交的任务为null时)
-                    if (rs < SHUTDOWN || (rs == SHUTDOWN && firstTask == null)) {
-                        //如果线程已经运行了或者还没有死掉，抛出一个IllegalThreadStateException异常
-                        if (t.isAlive()){
-                            throw new IllegalThreadStateException();
-                        }
-                        //把worker加入到工作线程Set里面
-                        workers.add(w);
-                        //工作线程被添加的标记置为true
-                        workerAdded = true;
-                    }
-                } finally {
-                    mainLock.unlock();
+                //如果线程已经运行了或者还没有死掉，抛出一个IllegalThreadStateException异常
+                if (t.isAlive()){
+                    throw new IllegalThreadStateException();
+                }
+                //先登记worker再重新检查线程池的状态，与shutdown(先改状态再遍历)配合：
+                //要么shutdown遍历时能看到这个worker，要么这里能看到SHUTDOWN状态
+                w.registrySlot = workers.register(w);
+                int rs = runStateOf(ctl.get());
+                //线程池的状态为RUNNING或者(线程池的状态SHUTDOWN并且提交的任务为null时)
+                if (rs < SHUTDOWN || (rs == SHUTDOWN && firstTask == null)) {
+                    metrics.updatePeakWorkers(workers.size());
+                    //工作线程被添加的标记置为true
+                    workerAdded = true;
                 }
                 if (workerAdded) {
                     //如果工作线程已经被添加到工作线程池了
@@ -347,16 +916,10 @@ public class ThreadPoolExecutor implements ExecutorService {
     }
 
     private void addWorkerFailed(Worker w) {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            if (w != null) {
-                workers.remove(w);
-            }
-            ctl.compareAndSet(ctl.get(), ctl.get() - 1);
-        } finally {
-            mainLock.unlock();
+        if (w != null) {
+            workers.deregister(w, w.registrySlot);
         }
+        decrementWorkerCount();
     }
     /**
      * 判断当前线程池是否正在运行
@@ -369,14 +932,62 @@ public class ThreadPoolExecutor implements ExecutorService {
         return taskQueue.remove(command);
     }
 
+    /**
+     * 执行拒绝策略(交给拒绝策略的是原始任务，不是入队时的包装)
+     * @param command-任务
+     * @title reject
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
     private void reject(Runnable command){
-        //暂时什么都不做
+        metrics.recordRejected();
+        rejectedHandler.rejectedExecution(QueuedTask.unwrap(command), this);
+    }
+    /**
+     * 把任务放入任务队列，队列已满时最多等待timeout(供BlockingSubmitPolicy使用)
+     * @param command-任务
+     * @param timeout-超时时间
+     * @param unit-时间单位
+     * @title enqueue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 是否入队成功，线程池已关闭或者超时返回false
+     */
+    boolean enqueue(Runnable command, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!isRunning(ctl.get())) {
+            return false;
+        }
+        Runnable queued = new QueuedTask(command, System.nanoTime(), metrics);
+        if (!taskQueue.offer(queued, timeout, unit)) {
+            return false;
+        }
+        int recheck = ctl.get();
+        if (!isRunning(recheck) && remove(queued)) {
+            return false;
+        }
+        if (workerCountOf(recheck) == 0) {
+            addWorker(null, false);
+        } else if (workStealing) {
+            signalIdleWorker(null);
+        }
+        return true;
     }
 
     private boolean compareAndIncrementWorkerCount(int expect) {
         return ctl.compareAndSet(expect, expect + 1);
     }
 
+    private boolean compareAndDecrementWorkerCount(int expect) {
+        return ctl.compareAndSet(expect, expect - 1);
+    }
+
+    private void decrementWorkerCount() {
+        int c;
+        do {
+            c = ctl.get();
+        } while (!ctl.compareAndSet(c, c - 1));
+    }
+
     private final class Worker extends ReentrantLock implements Runnable{
         /**
          * 线程
@@ -386,62 +997,295 @@ public class ThreadPoolExecutor implements ExecutorService {
          * 任务
          */
         public Runnable task;
+        /**
+         * 工作窃取模式下的本地双端队列：自己从头部存取，其他worker从尾部窃取
+         */
+        final ConcurrentLinkedDeque<Runnable> localTasks;
+        /**
+         * 本地队列中的任务数(ConcurrentLinkedDeque.size()需要遍历，这里单独计数)
+         */
+        final AtomicInteger localSize = new AtomicInteger();
+        /**
+         * 是否处于空闲(park)状态
+         */
+        volatile boolean idle;
+        /**
+         * 批量获取到的、还没有执行的任务(只有worker自己访问)
+         */
+        final ArrayDeque<Runnable> batchTasks = new ArrayDeque<>();
+        /**
+         * 在工作线程登记表中占用的槽下标(登记前为-1)
+         */
+        int registrySlot = -1;
+        /**
+         * worker正在退出(在从登记表移除之前设置)，之后不再接收分发到本地队列的任务
+         */
+        volatile boolean exiting;
 
         public Worker(ThreadFactory threadFactory, Runnable task){
             this.thread = threadFactory.newThread(this);
             this.task = task;
+            this.localTasks = workStealing ? new ConcurrentLinkedDeque<>() : null;
         }
 
         @Override
         public void run() {
             runWorker(this);
         }
+        /**
+         * 向本地队列压入任务，队列已满或者worker正在退出则返回false
+         * 压入之后再检查一次退出标记：退出的worker先设置标记再清空本地队列，两边至少有一方能看到对方，
+         * 如果标记已经设置并且任务还在队列中，取回任务返回false，由调用方放入taskQueue
+         * @param command-任务
+         * @param owner-是否由worker自己压入(自己压入头部，外部分发压入尾部)
+         * @title pushLocal
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         * @return boolean
+         */
+        boolean pushLocal(Runnable command, boolean owner) {
+            if (exiting) {
+                return false;
+            }
+            if (localSize.incrementAndGet() > localQueueCapacity) {
+                localSize.decrementAndGet();
+                return false;
+            }
+            if (owner) {
+                localTasks.offerFirst(command);
+            } else {
+                localTasks.offerLast(command);
+            }
+            if (exiting && localTasks.removeLastOccurrence(command)) {
+                localSize.decrementAndGet();
+                return false;
+            }
+            //取回失败说明退出的worker已经把任务重新分发了
+            return true;
+        }
+        /**
+         * 从本地队列取出任务
+         * @param owner-是否由worker自己取(自己从头部取，窃取者从尾部取)
+         * @title pollLocal
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         * @return Runnable
+         */
+        Runnable pollLocal(boolean owner) {
+            Runnable r = owner ? localTasks.pollFirst() : localTasks.pollLast();
+            if (r != null) {
+                localSize.decrementAndGet();
+            }
+            return r;
+        }
 
         final void runWorker(Worker w) {
+            if (workStealing) {
+                currentWorker.set(w);
+            }
             //获取当前线程（和worker绑定的线程）
             Runnable task = w.task;
             w.task = null;
-            //这个while循环，保证了如果任务队列中还有任务就继续拿出来执行，注意这里的短路情况
-            while (task != null || (task = getTask()) != null) {
-                w.lock();
-                try {
+            //是否因为任务抛出异常而退出
+            boolean completedAbruptly = true;
+            try {
+                //这个while循环，保证了如果任务队列中还有任务就继续拿出来执行，注意这里的短路情况
+                while (task != null || (task = (workStealing ? getStealingTask() : getTask())) != null) {
+                    w.lock();
+                    long start = System.nanoTime();
+                    if (task instanceof QueuedTask) {
+                        long sojourn = start - ((QueuedTask) task).enqueueNanos;
+                        metrics.recordQueueWait(sojourn);
+                        AdmissionPolicy admission = admissionPolicy;
+                        if (admission != null) {
+                            admission.onDequeue(sojourn);
+                        }
+                    }
+                    boolean success = false;
                     try {
-                        //开始正式运行任务
-                        task.run();
-                    } catch (RuntimeException x) {
-                        throw x;
-                    } catch (Error x) {
-                        throw x;
-                    } catch (Throwable x) {
-                        throw new Error(x);
+                        try {
+                            //开始正式运行任务
+                            task.run();
+                            success = true;
+                        } catch (RuntimeException x) {
+                            throw x;
+                        } catch (Error x) {
+                            throw x;
+                        } catch (Throwable x) {
+                            throw new Error(x);
+                        }
+                    } finally {
+                        metrics.recordExecution(System.nanoTime() - start, success);
+                        task = null;
+                        w.unlock();
                     }
-                } finally {
-                    task = null;
-                    w.unlock();
                 }
+                completedAbruptly = false;
+            } finally {
+                processWorkerExit(w, completedAbruptly);
             }
-            final ReentrantLock reentrantLock = mainLock;
-            reentrantLock.lock();
-            try {
-                workers.remove(w);
-                ctl.compareAndSet(ctl.get(),ctl.get() - 1);
-            }finally {
-                reentrantLock.unlock();
+        }
+        /**
+         * worker退出：从工作线程集合中移除，工作窃取模式下还需要把本地队列的残留任务重新分发
+         * 正常退出时工作线程数已经在获取任务时减掉了，只有任务抛出异常退出时才在这里减，并补充一个新线程
+         * @param w-退出的worker
+         * @param completedAbruptly-是否因为任务抛出异常而退出
+         * @title processWorkerExit
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         */
+        private void processWorkerExit(Worker w, boolean completedAbruptly) {
+            if (completedAbruptly) {
+                decrementWorkerCount();
+            }
+            //先设置退出标记再移除，之后分发过来的任务要么被拒绝，要么在redistributeLocalTasks中被看到
+            w.exiting = true;
+            workers.deregister(w, w.registrySlot);
+            if (workStealing) {
+                currentWorker.remove();
+                redistributeLocalTasks(w);
+            }
+            //任务抛出异常导致worker退出时，缓冲区中批量取到的任务放回任务队列
+            Runnable r;
+            while ((r = w.batchTasks.pollFirst()) != null) {
+                if (!taskQueue.offer(r)) {
+                    reject(r);
+                }
+            }
+            int c = ctl.get();
+            if (completedAbruptly && isRunning(c)) {
+                addWorker(null, false);
+            } else if (workerCountOf(c) == 0 && taskQueue.size() > 0) {
+                addWorker(null, false);
             }
         }
-
+        /**
+         * 获取任务，返回null时worker退出(返回null之前已经减掉了工作线程数)
+         * 1：线程池已经shutdown并且任务队列为空
+         * 2：工作线程数超过了最大线程数(最大线程数被调小了)
+         * 3：超时等待没有拿到任务，并且当前线程属于可以超时退出的线程(非核心线程或者允许核心线程超时)
+         * 后两种情况通过CAS减工作线程数，保证多个空闲线程同时超时时不会一起退出把线程数减到核心线程数以下
+         * @title getTask
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         * @return Runnable
+         */
         private Runnable getTask() {
+            //先执行完上一次批量取到的任务
+            Runnable r = batchTasks.pollFirst();
+            if (r != null) {
+                return r;
+            }
+            boolean timedOut = false;
             for (;;) {
                 int c = ctl.get();
+                //线程池已经shutdown并且任务队列为空，worker退出
+                if (!isRunning(c) && taskQueue.size() == 0) {
+                    decrementWorkerCount();
+                    return null;
+                }
                 //获取工作线程的数量
                 int wc = workerCountOf(c);
                 // 是否允许核心线程超时或者当前工作线程数是否大于核心线程数
                 boolean timed = allowShutdownCoreThreadTimeOut || wc > coreThreadSize;
+                if ((wc > maxThreadSize || (timed && timedOut)) && (wc > 1 || taskQueue.size() == 0)) {
+                    if (compareAndDecrementWorkerCount(c)) {
+                        return null;
+                    }
+                    continue;
+                }
+                int batchSize = taskBatchSize;
+                IdleStrategy idle = idleStrategy;
+                long nanos = timed ? unit.toNanos(keepAliveTime) : Long.MAX_VALUE;
                 try {
-                    Runnable r = timed ? taskQueue.poll(keepAliveTime, unit) : taskQueue.take();
-                    return r;
+                    if (batchSize > 1) {
+                        if (taskQueue.pollBatch(batchTasks, batchSize, idle, nanos, TimeUnit.NANOSECONDS) > 0) {
+                            return batchTasks.pollFirst();
+                        }
+                    } else {
+                        r = taskQueue.poll(idle, nanos, TimeUnit.NANOSECONDS);
+                        if (r != null) {
+                            return r;
+                        }
+                    }
+                    timedOut = true;
                 } catch (InterruptedException retry) {
-                    retry.printStackTrace();
+                    //shutdown或者调整线程数时会中断空闲的worker，回到循环开头重新检查
+                    timedOut = false;
+                }
+            }
+        }
+        /**
+         * 工作窃取模式下获取任务：本地队列 -> 窃取其他worker -> taskQueue，都没有则park等待唤醒
+         * 线程池shutdown并且所有队列都为空，或者空闲超时，则返回null让worker退出
+         * @title getStealingTask
+         * @author yuanfei0241@hsyuntai.com
+         * @since v1.0.0
+         * @return Runnable
+         */
+        private Runnable getStealingTask() {
+            boolean timedOut = false;
+            //按空闲策略空转的次数以及开始空转的时间(空转也要按keepAliveTime超时)
+            int attempt = 0;
+            long idleStart = 0L;
+            for (;;) {
+                Runnable r = pollLocal(true);
+                if (r == null) {
+                    r = steal(this);
+                }
+                if (r == null) {
+                    r = taskQueue.poll();
+                }
+                if (r != null) {
+                    return r;
+                }
+                int c = ctl.get();
+                if (!isRunning(c)) {
+                    decrementWorkerCount();
+                    return null;
+                }
+                int wc = workerCountOf(c);
+                boolean timed = allowShutdownCoreThreadTimeOut || wc > coreThreadSize;
+                if ((wc > maxThreadSize || (timed && timedOut)) && (wc > 1 || !hasPendingTask(this))) {
+                    if (compareAndDecrementWorkerCount(c)) {
+                        return null;
+                    }
+                    continue;
+                }
+                if (idleStrategy.idle(attempt)) {
+                    long now = System.nanoTime();
+                    if (attempt == 0) {
+                        idleStart = now;
+                    } else if (timed && now - idleStart >= unit.toNanos(keepAliveTime)) {
+                        timedOut = true;
+                    }
+                    if (attempt < Integer.MAX_VALUE) {
+                        attempt++;
+                    }
+                    //空转期间收到的中断(shutdown/调整线程数)只需要回到循环开头重新检查
+                    Thread.interrupted();
+                    continue;
+                }
+                //先发布空闲状态再重新检查一次，保证与分发线程的「压入任务->检查空闲」不会互相错过
+                idle = true;
+                idleWorkerCount.incrementAndGet();
+                try {
+                    if (hasPendingTask(this)) {
+                        continue;
+                    }
+                    if (timed) {
+                        long nanos = unit.toNanos(keepAliveTime);
+                        long deadline = System.nanoTime() + nanos;
+                        LockSupport.parkNanos(this, nanos);
+                        timedOut = System.nanoTime() - deadline >= 0;
+                    } else {
+                        LockSupport.park(this);
+                    }
+                    //shutdown通过中断唤醒worker，清除中断标记后回到循环开头检查线程池状态
+                    Thread.interrupted();
+                } finally {
+                    idle = false;
+                    idleWorkerCount.decrementAndGet();
                 }
             }
         }
@@ -0,0 +1,233 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程池运行指标
+ * 计数器使用LongAdder，多个worker同时记录时不会争抢同一个缓存行；
+ * 排队时间和执行时间使用LatencyHistogram记录，worker执行任务的热路径上不分配对象
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title ThreadPoolMetrics
+ * @date 2026/10/17
+ */
+public class ThreadPoolMetrics {
+    /**
+     * 提交的任务数(包括被拒绝的)
+     */
+    private final LongAdder submitted = new LongAdder();
+    /**
+     * 正常执行完成的任务数
+     */
+    private final LongAdder completed = new LongAdder();
+    /**
+     * 被拒绝的任务数
+     */
+    private final LongAdder rejected = new LongAdder();
+    /**
+     * 执行时抛出异常的任务数
+     */
+    private final LongAdder failed = new LongAdder();
+    /**
+     * 过了截止时间、没有执行就被队列丢弃的任务数
+     */
+    private final LongAdder expired = new LongAdder();
+    /**
+     * 历史最大工作线程数
+     */
+    private final AtomicInteger peakWorkers = new AtomicInteger();
+    /**
+     * 任务排队时间(纳秒)
+     */
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    /**
+     * 任务执行时间(纳秒)
+     */
+    private final LatencyHistogram execution = new LatencyHistogram();
+
+    void recordSubmitted(int n) {
+        submitted.add(n);
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordExpired() {
+        expired.increment();
+    }
+
+    void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+    /**
+     * 记录一次任务执行
+     * @param nanos-执行耗时
+     * @param success-是否正常结束
+     * @title recordExecution
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    void recordExecution(long nanos, boolean success) {
+        execution.record(nanos);
+        if (success) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    void updatePeakWorkers(int workers) {
+        int peak;
+        while (workers > (peak = peakWorkers.get()) && !peakWorkers.compareAndSet(peak, workers)) {
+            //并发更新峰值，失败重试
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    public int getPeakWorkers() {
+        return peakWorkers.get();
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getExecution() {
+        return execution;
+    }
+    /**
+     * 生成指标快照
+     * @param poolSize-当前工作线程数
+     * @param activeCount-正在执行任务的线程数
+     * @param queueSize-任务队列中的任务数
+     * @title snapshot
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return Snapshot
+     */
+    Snapshot snapshot(int poolSize, int activeCount, int queueSize) {
+        return new Snapshot(getSubmittedCount(), getCompletedCount(), getRejectedCount(), getFailedCount()
+                , getExpiredCount(), getPeakWorkers(), poolSize, activeCount, queueSize, queueWait.snapshot(), execution.snapshot());
+    }
+
+    /**
+     * 线程池指标快照(不可变)，各个计数器分别读取，彼此之间不保证是同一时刻的值
+     * @author yuanfei0241@hsyuntai.com
+     * @version V1.0.0
+     * @title Snapshot
+     * @date 2026/10/17
+     */
+    public static final class Snapshot {
+
+        private final long submittedCount;
+
+        private final long completedCount;
+
+        private final long rejectedCount;
+
+        private final long failedCount;
+
+        private final long expiredCount;
+
+        private final int peakWorkers;
+
+        private final int poolSize;
+
+        private final int activeCount;
+
+        private final int queueSize;
+
+        private final LatencyHistogram.Snapshot queueWait;
+
+        private final LatencyHistogram.Snapshot execution;
+
+        private Snapshot(long submittedCount, long completedCount, long rejectedCount, long failedCount
+                , long expiredCount, int peakWorkers, int poolSize, int activeCount, int queueSize
+                , LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot execution) {
+            this.submittedCount = submittedCount;
+            this.completedCount = completedCount;
+            this.rejectedCount = rejectedCount;
+            this.failedCount = failedCount;
+            this.expiredCount = expiredCount;
+            this.peakWorkers = peakWorkers;
+            this.poolSize = poolSize;
+            this.activeCount = activeCount;
+            this.queueSize = queueSize;
+            this.queueWait = queueWait;
+            this.execution = execution;
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        public long getExpiredCount() {
+            return expiredCount;
+        }
+
+        public int getPeakWorkers() {
+            return peakWorkers;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public LatencyHistogram.Snapshot getQueueWait() {
+            return queueWait;
+        }
+
+        public LatencyHistogram.Snapshot getExecution() {
+            return execution;
+        }
+
+        @Override
+        public String toString() {
+            return "submitted=" + submittedCount + ", completed=" + completedCount + ", rejected=" + rejectedCount
+                    + ", failed=" + failedCount + ", expired=" + expiredCount + ", poolSize=" + poolSize + ", active=" + activeCount
+                    + ", peakWorkers=" + peakWorkers + ", queueSize=" + queueSize
+                    + ", queueWait(ns)=[" + queueWait + "], execution(ns)=[" + execution + "]";
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package basekownledge.threadpool;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于分层时间轮的定时任务线程池
+ * 时间轮共LEVELS层，每层64个槽：第0层每个槽代表1个tick，第n层每个槽代表64^n个tick。
+ * 提交和取消任务只是往无锁队列里放一个节点(O(1))，时间轮只由一个tick线程操作，不需要加锁：
+ * tick线程每个tick把新任务挂到对应的槽上，摘掉已取消的任务，第0层转完一圈时把上一层当前槽的任务重新分配到下层(cascade)，
+ * 然后把第0层当前槽里到期的任务交给ThreadPoolExecutor的worker执行。
+ * 时间轮为空时tick线程一直park，直到有新任务提交。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title TimingWheelScheduledExecutor
+ * @date 2026/10/17
+ */
+public class TimingWheelScheduledExecutor implements ScheduledExecutorService {
+    /**
+     * 每层槽数的位数(64个槽)
+     */
+    private static final int WHEEL_BITS = 6;
+    /**
+     * 每层槽数
+     */
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    /**
+     * 槽下标掩码
+     */
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    /**
+     * 层数，5层覆盖2^30个tick(tick为1ms时约12天)，更远的任务先挂在最高层，cascade时再重新分配
+     */
+    private static final int LEVELS = 5;
+    /**
+     * 时间轮能直接表示的最大tick跨度
+     */
+    private static final long MAX_SPAN = 1L << (WHEEL_BITS * LEVELS);
+    /**
+     * 默认tick时长1ms
+     */
+    private static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /**
+     * 执行到期任务的线程池
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * tick时长(纳秒)
+     */
+    private final long tickNanos;
+    /**
+     * 时间轮的起始时间
+     */
+    private final long startNanos;
+    /**
+     * 时间轮的各层槽位(只有tick线程访问)
+     */
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+    /**
+     * 新提交的任务，等待tick线程挂到时间轮上
+     */
+    private final ConcurrentLinkedQueue<ScheduledFutureTask> pendingTasks = new ConcurrentLinkedQueue<>();
+    /**
+     * 被取消的任务，等待tick线程从时间轮上摘掉
+     */
+    private final ConcurrentLinkedQueue<ScheduledFutureTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+    /**
+     * tick线程
+     */
+    private final Thread ticker;
+    /**
+     * 已经处理到的tick(只有tick线程修改)
+     */
+    private long currentTick;
+    /**
+     * 挂在时间轮上的任务数(只有tick线程访问)
+     */
+    private int wheelTaskCount;
+    /**
+     * tick线程是否因为时间轮为空而park
+     */
+    private volatile boolean sleeping;
+    /**
+     * 是否已经关闭
+     */
+    private volatile boolean stopped;
+
+    /**
+     * 默认tick为1ms的构造函数
+     * @param executor-执行到期任务的线程池
+     */
+    public TimingWheelScheduledExecutor(ThreadPoolExecutor executor) {
+        this(executor, DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+    /**
+     * 可指定tick时长的构造函数，tick越小定时越精确，tick线程唤醒越频繁
+     * @param executor-执行到期任务的线程池
+     * @param tickDuration-tick时长
+     * @param unit-时间单位
+     */
+    public TimingWheelScheduledExecutor(ThreadPoolExecutor executor, long tickDuration, TimeUnit unit) {
+        if (null == executor || null == unit) {
+            throw new NullPointerException();
+        }
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.executor = executor;
+        this.tickNanos = unit.toNanos(tickDuration);
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheels[level][i] = new Bucket();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::runTicker, "timing-wheel-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(command, delay, 0L, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return enqueue(command, initialDelay, period, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return enqueue(command, initialDelay, -delay, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public void submit(Runnable command) {
+        executor.submit(command);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable command, T result) {
+        return executor.submit(command, result);
+    }
+
+    @Override
+    public List<Runnable> executeAll(Collection<? extends Runnable> commands) {
+        return executor.executeAll(commands);
+    }
+
+    @Override
+    public <T> List<Future<T>> submitAll(Collection<? extends Runnable> commands, T result) {
+        return executor.submitAll(commands, result);
+    }
+    /**
+     * 关闭：停止tick线程并取消所有还没有到期的任务，然后关闭线程池(已经交给线程池的任务会继续执行完)
+     */
+    @Override
+    public void shutdown() {
+        stopped = true;
+        LockSupport.unpark(ticker);
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return stopped;
+    }
+    /**
+     * 创建定时任务并放入待处理队列
+     * @param command-任务
+     * @param delay-延迟时间
+     * @param period-周期(0：只执行一次，大于0：固定频率，小于0：固定间隔)
+     * @param unit-时间单位
+     * @title enqueue
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ScheduledFuture<?>
+     */
+    private ScheduledFuture<?> enqueue(Runnable command, long delay, long period, TimeUnit unit) {
+        if (null == command || null == unit) {
+            throw new NullPointerException();
+        }
+        if (stopped) {
+            throw new IllegalStateException("定时线程池已关闭!");
+        }
+        ScheduledFutureTask task = new ScheduledFutureTask(command, System.nanoTime() + unit.toNanos(Math.max(0L, delay))
+                , unit.toNanos(period));
+        schedulePending(task);
+        return task;
+    }
+    /**
+     * 把任务放入待处理队列，tick线程空闲park时唤醒它
+     * @param task-任务
+     * @title schedulePending
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void schedulePending(ScheduledFutureTask task) {
+        pendingTasks.offer(task);
+        if (sleeping) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    private void runTicker() {
+        while (!stopped) {
+            long nextTick = currentTick + 1;
+            long wakeAt = startNanos + nextTick * tickNanos;
+            long now = System.nanoTime();
+            if (now - wakeAt < 0) {
+                if (wheelTaskCount == 0 && pendingTasks.isEmpty()) {
+                    //时间轮为空，一直park到有新任务为止。先发布sleeping再检查队列，保证不会错过提交线程的唤醒
+                    sleeping = true;
+                    if (pendingTasks.isEmpty() && !stopped) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                    //时间轮是空的，直接把刻度拨到当前时间，不需要逐个tick空转
+                    currentTick = Math.max(currentTick, (System.nanoTime() - startNanos) / tickNanos - 1);
+                } else {
+                    LockSupport.parkNanos(this, wakeAt - now);
+                }
+                continue;
+            }
+            currentTick = nextTick;
+            transferPendingTasks();
+            removeCancelledTasks();
+            cascade();
+            expireTasks();
+        }
+        cancelAll();
+    }
+    /**
+     * 把新提交的任务挂到时间轮上
+     * @title transferPendingTasks
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void transferPendingTasks() {
+        ScheduledFutureTask task;
+        while ((task = pendingTasks.poll()) != null) {
+            if (!task.isCancelled()) {
+                place(task);
+            }
+        }
+    }
+    /**
+     * 从时间轮上摘掉已取消的任务(双向链表，O(1))
+     * @title removeCancelledTasks
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void removeCancelledTasks() {
+        ScheduledFutureTask task;
+        while ((task = cancelledTasks.poll()) != null) {
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+                wheelTaskCount--;
+            }
+        }
+    }
+    /**
+     * 第0层转完一圈(低位全为0)时，把上一层当前槽的任务重新分配到下层，逐层向上
+     * @title cascade
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (level * WHEEL_BITS)) - 1)) != 0) {
+                break;
+            }
+            int index = (int) (currentTick >>> (level * WHEEL_BITS)) & WHEEL_MASK;
+            ScheduledFutureTask task = wheels[level][index].clear();
+            while (task != null) {
+                ScheduledFutureTask next = task.next;
+                task.next = null;
+                task.prev = null;
+                wheelTaskCount--;
+                place(task);
+                task = next;
+            }
+        }
+    }
+    /**
+     * 把第0层当前槽里到期的任务交给线程池执行
+     * @title expireTasks
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void expireTasks() {
+        ScheduledFutureTask task = wheels[0][(int) currentTick & WHEEL_MASK].clear();
+        while (task != null) {
+            ScheduledFutureTask next = task.next;
+            task.next = null;
+            task.prev = null;
+            wheelTaskCount--;
+            if (task.deadlineTick > currentTick) {
+                place(task);
+            } else if (!task.isCancelled()) {
+                try {
+                    executor.execute(task);
+                } catch (RuntimeException e) {
+                    //线程池拒绝执行(抛出异常)时取消任务，不影响tick线程
+                    task.cancel(false);
+                }
+            }
+            task = next;
+        }
+    }
+    /**
+     * 根据到期tick与当前tick的距离选择层和槽
+     * @param task-任务
+     * @title place
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void place(ScheduledFutureTask task) {
+        long deadline = Math.max(task.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+        if (delta >= MAX_SPAN) {
+            //超出时间轮范围，先挂在最高层最远的槽上，cascade时重新计算
+            deadline = currentTick + MAX_SPAN - 1;
+            delta = MAX_SPAN - 1;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << ((level + 1) * WHEEL_BITS))) {
+            level++;
+        }
+        int index = (int) (deadline >>> (level * WHEEL_BITS)) & WHEEL_MASK;
+        wheels[level][index].add(task);
+        wheelTaskCount++;
+    }
+    /**
+     * tick线程退出时取消所有还没有到期的任务
+     * @title cancelAll
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void cancelAll() {
+        ScheduledFutureTask task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.cancel(false);
+        }
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                task = bucket.clear();
+                while (task != null) {
+                    ScheduledFutureTask next = task.next;
+                    task.next = null;
+                    task.prev = null;
+                    task.cancel(false);
+                    task = next;
+                }
+            }
+        }
+        wheelTaskCount = 0;
+        cancelledTasks.clear();
+    }
+    /**
+     * 计算到期时间对应的tick(向上取整)
+     * @param deadlineNanos-到期时间
+     * @title tickOf
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return long
+     */
+    private long tickOf(long deadlineNanos) {
+        long elapsed = deadlineNanos - startNanos;
+        return elapsed <= 0 ? 0L : (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * 时间轮上的一个槽(双向链表，只有tick线程访问)
+     * @author yuanfei0241@hsyuntai.com
+     * @version V1.0.0
+     * @title Bucket
+     * @date 2026/10/17
+     */
+    private static final class Bucket {
+
+        private ScheduledFutureTask head;
+
+        private ScheduledFutureTask tail;
+
+        void add(ScheduledFutureTask task) {
+            task.bucket = this;
+            task.prev = tail;
+            task.next = null;
+            if (tail == null) {
+                head = task;
+            } else {
+                tail.next = task;
+            }
+            tail = task;
+        }
+
+        void remove(ScheduledFutureTask task) {
+            if (task.prev == null) {
+                head = task.next;
+            } else {
+                task.prev.next = task.next;
+            }
+            if (task.next == null) {
+                tail = task.prev;
+            } else {
+                task.next.prev = task.prev;
+            }
+            task.prev = null;
+            task.next = null;
+            task.bucket = null;
+        }
+        /**
+         * 摘下整个链表并返回表头，调用方负责遍历
+         */
+        ScheduledFutureTask clear() {
+            ScheduledFutureTask first = head;
+            for (ScheduledFutureTask t = first; t != null; t = t.next) {
+                t.bucket = null;
+            }
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+
+    /**
+     * 定时任务
+     * @author yuanfei0241@hsyuntai.com
+     * @version V1.0.0
+     * @title ScheduledFutureTask
+     * @date 2026/10/17
+     */
+    private final class ScheduledFutureTask extends FutureTask<Void> implements ScheduledFuture<Void> {
+        /**
+         * 周期(0：只执行一次，大于0：固定频率，小于0：固定间隔)
+         */
+        private final long period;
+        /**
+         * 下一次执行的时间
+         */
+        private volatile long deadlineNanos;
+        /**
+         * 下一次执行的时间对应的tick
+         */
+        private volatile long deadlineTick;
+        /**
+         * 所在的槽以及链表前后节点(只有tick线程访问)
+         */
+        private Bucket bucket;
+
+        private ScheduledFutureTask prev;
+
+        private ScheduledFutureTask next;
+
+        ScheduledFutureTask(Runnable command, long deadlineNanos, long period) {
+            super(command, null);
+            this.period = period;
+            setDeadline(deadlineNanos);
+        }
+
+        private void setDeadline(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+            this.deadlineTick = tickOf(deadlineNanos);
+        }
+
+        @Override
+        public void run() {
+            if (period == 0) {
+                super.run();
+            } else if (super.runAndReset() && !stopped) {
+                //周期任务执行成功后计算下一次执行时间，重新放入时间轮
+                setDeadline(period > 0 ? deadlineNanos + period : System.nanoTime() - period);
+                schedulePending(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && !stopped) {
+                cancelledTasks.offer(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package basekownledge.threadpool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 每个任务一个线程的执行器，适合大量阻塞I/O的任务
+ * JDK 21及以上运行时每个任务跑在一个虚拟线程上，阻塞时只挂起虚拟线程，不占用平台线程和线程栈内存，
+ * 可以同时运行上万个阻塞任务；JDK 8~20运行时退化为每个任务一个平台线程(见TaskThreads)。
+ * 用信号量限制同时运行的任务数(例如下游连接池的大小)，达到上限时提交线程阻塞等待，形成背压。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title VirtualThreadPerTaskExecutor
+ * @date 2026/10/17
+ */
+public class VirtualThreadPerTaskExecutor implements ExecutorService {
+    /**
+     * 默认线程名前缀
+     */
+    private static final String DEFAULT_NAME_PREFIX = "yf-task-";
+    /**
+     * 线程工厂
+     */
+    private final ThreadFactory threadFactory;
+    /**
+     * 同时运行的任务数上限
+     */
+    private final Semaphore permits;
+    /**
+     * 已经提交还没有结束的任务数
+     */
+    private final AtomicInteger runningCount = new AtomicInteger();
+    /**
+     * 所有任务结束后(并且已经shutdown)放行awaitTermination
+     */
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    /**
+     * 是否已经关闭
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * 构造函数
+     * @param maxConcurrency-同时运行的任务数上限
+     */
+    public VirtualThreadPerTaskExecutor(int maxConcurrency) {
+        this(maxConcurrency, DEFAULT_NAME_PREFIX);
+    }
+    /**
+     * 构造函数
+     * @param maxConcurrency-同时运行的任务数上限
+     * @param namePrefix-线程名前缀
+     */
+    public VirtualThreadPerTaskExecutor(int maxConcurrency, String namePrefix) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (null == namePrefix) {
+            throw new NullPointerException();
+        }
+        this.permits = new Semaphore(maxConcurrency);
+        this.threadFactory = TaskThreads.newFactory(namePrefix);
+    }
+    /**
+     * 执行任务，同时运行的任务数达到上限时阻塞等待
+     * @param command-任务
+     * @throws RejectedExecutionException 已经shutdown，或者等待时提交线程被中断
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (null == command) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("执行器已关闭!");
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待执行许可时被中断!", e);
+        }
+        runningCount.incrementAndGet();
+        //先计数再检查状态，与shutdown(先改状态再检查计数)配合，保证不会漏掉终止通知
+        if (shutdown) {
+            finishTask();
+            throw new RejectedExecutionException("执行器已关闭!");
+        }
+        Thread t;
+        try {
+            t = threadFactory.newThread(() -> {
+                try {
+                    command.run();
+                } finally {
+                    finishTask();
+                }
+            });
+            t.start();
+        } catch (RuntimeException | Error e) {
+            //线程创建失败(例如平台线程数超过系统上限)，归还许可
+            finishTask();
+            throw e;
+        }
+    }
+
+    @Override
+    public void submit(Runnable command) {
+        execute(command);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable command, T result) {
+        FutureTask<T> fTask = new FutureTask<>(command, result);
+        execute(fTask);
+        return fTask;
+    }
+    /**
+     * 逐个执行任务(每个任务都可能因为并发上限而阻塞)，shutdown之后的任务被拒绝
+     */
+    @Override
+    public List<Runnable> executeAll(Collection<? extends Runnable> commands) {
+        if (null == commands) {
+            throw new NullPointerException();
+        }
+        List<Runnable> rejected = new ArrayList<>();
+        for (Runnable command : commands) {
+            try {
+                execute(command);
+            } catch (RejectedExecutionException e) {
+                rejected.add(command);
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public <T> List<Future<T>> submitAll(Collection<? extends Runnable> commands, T result) {
+        if (null == commands) {
+            throw new NullPointerException();
+        }
+        List<Future<T>> futures = new ArrayList<>(commands.size());
+        for (Runnable command : commands) {
+            FutureTask<T> fTask = new FutureTask<>(command, result);
+            futures.add(fTask);
+            try {
+                execute(fTask);
+            } catch (RejectedExecutionException e) {
+                fTask.cancel(false);
+            }
+        }
+        return futures;
+    }
+    /**
+     * 关闭执行器：不再接收新任务，已经提交的任务继续执行完
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        tryTerminate();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    /**
+     * 等待shutdown之后所有任务结束
+     * @param timeout-超时时间
+     * @param unit-时间单位
+     * @title awaitTermination
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 是否在超时之前全部结束
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+    /**
+     * 已经提交还没有结束的任务数
+     * @title getActiveCount
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int
+     */
+    public int getActiveCount() {
+        return runningCount.get();
+    }
+    /**
+     * 是否运行在虚拟线程上(JDK 21及以上)
+     * @title isVirtual
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    public boolean isVirtual() {
+        return TaskThreads.isVirtual();
+    }
+
+    private void finishTask() {
+        permits.release();
+        runningCount.decrementAndGet();
+        tryTerminate();
+    }
+
+    private void tryTerminate() {
+        if (shutdown && runningCount.get() == 0) {
+            terminated.countDown();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package basekownledge.threadpool;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 无锁的工作线程登记表(分段CAS槽位数组)
+ * 登记时从随机位置开始找一个空槽CAS占住，注销时把自己的槽CAS置空，都不需要全局锁；
+ * 槽位用完时追加一个新的段(整个段数组CAS替换，只在线程数创新高时发生)，段只增不减，下标一旦分配就保持不变。
+ * 遍历是弱一致的：遍历过程中登记/注销的worker可能看得到也可能看不到，
+ * 但在遍历开始之前已经登记、并且在遍历结束之前没有注销的worker一定会被遍历到。
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title WorkerRegistry
+ * @date 2026/10/17
+ */
+final class WorkerRegistry<W> implements Iterable<W> {
+    /**
+     * 每段槽数的位数(64个槽)
+     */
+    private static final int SEGMENT_SHIFT = 6;
+    /**
+     * 每段槽数
+     */
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    /**
+     * 段内下标掩码
+     */
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    /**
+     * 段数组(只增不减，整体CAS替换)
+     */
+    private final AtomicReference<Segment[]> segments = new AtomicReference<>(new Segment[]{new Segment()});
+    /**
+     * 已登记的worker数
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 登记worker
+     * @param w-worker
+     * @title register
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return int 占用的槽下标，注销时传回
+     */
+    int register(W w) {
+        for (;;) {
+            Segment[] segs = segments.get();
+            int capacity = segs.length << SEGMENT_SHIFT;
+            //空槽很多时随机起点能把并发登记的CAS分散到不同的槽上
+            int start = ThreadLocalRandom.current().nextInt(capacity);
+            for (int i = 0; i < capacity; i++) {
+                int index = start + i;
+                if (index >= capacity) {
+                    index -= capacity;
+                }
+                Segment seg = segs[index >>> SEGMENT_SHIFT];
+                int offset = index & SEGMENT_MASK;
+                if (seg.get(offset) == null && seg.compareAndSet(offset, null, w)) {
+                    size.incrementAndGet();
+                    return index;
+                }
+            }
+            grow(segs);
+        }
+    }
+    /**
+     * 注销worker(重复注销或者槽已经不属于它时什么也不做)
+     * @param w-worker
+     * @param index-登记时返回的槽下标
+     * @title deregister
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean 是否注销成功
+     */
+    boolean deregister(W w, int index) {
+        if (index < 0) {
+            return false;
+        }
+        Segment seg = segments.get()[index >>> SEGMENT_SHIFT];
+        if (seg.compareAndSet(index & SEGMENT_MASK, w, null)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+    /**
+     * 获取槽上的worker
+     * @param index-槽下标，取值[0, capacity())
+     * @title get
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return W 空槽返回null
+     */
+    @SuppressWarnings("unchecked")
+    W get(int index) {
+        return (W) segments.get()[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+    }
+    /**
+     * 从指定槽开始(循环)找到第一个已登记的worker
+     * @param start-起始槽下标(非负，超过容量时取模)
+     * @title next
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return W 没有已登记的worker时返回null
+     */
+    W next(int start) {
+        if (size.get() == 0) {
+            return null;
+        }
+        int capacity = capacity();
+        start %= capacity;
+        for (int i = 0; i < capacity; i++) {
+            int index = start + i;
+            W w = get(index >= capacity ? index - capacity : index);
+            if (w != null) {
+                return w;
+            }
+        }
+        return null;
+    }
+    /**
+     * 当前槽位总数
+     */
+    int capacity() {
+        return segments.get().length << SEGMENT_SHIFT;
+    }
+    /**
+     * 已登记的worker数
+     */
+    int size() {
+        return size.get();
+    }
+
+    boolean isEmpty() {
+        return size.get() == 0;
+    }
+    /**
+     * 追加一个新的段，CAS失败说明其他线程已经追加过了，直接重试登记即可
+     * @param segs-观察到的段数组
+     * @title grow
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    private void grow(Segment[] segs) {
+        Segment[] bigger = new Segment[segs.length + 1];
+        System.arraycopy(segs, 0, bigger, 0, segs.length);
+        bigger[segs.length] = new Segment();
+        segments.compareAndSet(segs, bigger);
+    }
+    /**
+     * 弱一致的迭代器，跳过空槽，不支持remove
+     */
+    @Override
+    public Iterator<W> iterator() {
+        final Segment[] segs = segments.get();
+        return new Iterator<W>() {
+
+            private int index;
+
+            private W nextWorker = advance();
+
+            @SuppressWarnings("unchecked")
+            private W advance() {
+                int capacity = segs.length << SEGMENT_SHIFT;
+                while (index < capacity) {
+                    Object o = segs[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+                    index++;
+                    if (o != null) {
+                        return (W) o;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextWorker != null;
+            }
+
+            @Override
+            public W next() {
+                W w = nextWorker;
+                if (w == null) {
+                    throw new NoSuchElementException();
+                }
+                nextWorker = advance();
+                return w;
+            }
+        };
+    }
+
+    /**
+     * 一段槽位
+     */
+    private static final class Segment extends AtomicReferenceArray<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        Segment() {
+            super(SEGMENT_SIZE);
+        }
+    }
+}
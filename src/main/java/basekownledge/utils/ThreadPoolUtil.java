@@ -1,10 +1,19 @@
 package basekownledge.utils;
 
+import basekownledge.blockqueue.ArrayBlockingQueue;
+import basekownledge.model.GoodDTO;
+import basekownledge.threadpool.AbortPolicy;
+import basekownledge.threadpool.AdaptivePoolSizeController;
+import basekownledge.threadpool.KeyedSerialExecutor;
+import basekownledge.threadpool.ThreadPoolExecutor;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.collections4.CollectionUtils;
 
 import java.util.ArrayList;
-import java.util.concurrent.*;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 线程池工具类
@@ -26,6 +35,18 @@ public class ThreadPoolUtil {
      * 默认等待3s
      */
     private static final long KEEPALIVE_TIME = 3;
+    /**
+     * 自适应调整的采样周期1s
+     */
+    private static final long ADAPTIVE_PERIOD_MILLIS = 1000;
+    /**
+     * 自适应调整的目标平均排队时间50ms
+     */
+    private static final long TARGET_QUEUE_WAIT_MILLIS = 50;
+    /**
+     * 自适应调整每次增减的线程数
+     */
+    private static final int ADAPTIVE_STEP = 2;
     /**
      * 线程工程
      */
@@ -35,13 +56,21 @@ public class ThreadPoolUtil {
      */
     private static final ArrayBlockingQueue<Runnable> taskQueue = new ArrayBlockingQueue<>(1024);
 
-    private static final ExecutorService executorService = new ThreadPoolExecutor(
+    private static final ThreadPoolExecutor executorService = new ThreadPoolExecutor(
             CORE_SIZE,
             MAX_SIZE,
             KEEPALIVE_TIME,
             TimeUnit.SECONDS,
-            taskQueue,
-            threadFactory,new ThreadPoolExecutor.AbortPolicy());
+            threadFactory,
+            taskQueue,new AbortPolicy());
+    /**
+     * 按商品ID串行执行的执行器，同一个商品的更新按提交顺序执行，不同商品并行
+     */
+    private static final KeyedSerialExecutor<Long> goodsExecutor = new KeyedSerialExecutor<>(executorService);
+    /**
+     * 线程池大小自适应控制器(默认不开启)
+     */
+    private static AdaptivePoolSizeController poolSizeController;
     /**
      * 提交任务执行
      * @param task-任务
@@ -54,7 +83,22 @@ public class ThreadPoolUtil {
         executorService.execute(task);
     }
     /**
-     * 批量提交任务
+     * 提交商品更新任务，同一个商品(goodsId)的任务按提交顺序依次执行
+     * @param goods-商品
+     * @param task-任务
+     * @title submitGoodsTask
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return
+     */
+    public static void submitGoodsTask(GoodDTO goods, Runnable task){
+        if(null == goods || null == goods.getGoodsId()){
+            throw new NullPointerException("商品ID为空!");
+        }
+        goodsExecutor.execute(goods.getGoodsId(), task);
+    }
+    /**
+     * 批量提交任务(整批一次性准入)，有任务被拒绝时抛出RejectedExecutionException，被接收的任务照常执行
      * @param tasks-任务数组
      * @title submitTaskList
      * @author yuanfei0241@hsyuntai.com
@@ -65,6 +109,37 @@ public class ThreadPoolUtil {
         if(CollectionUtils.isEmpty(tasks)){
             throw new NullPointerException("任务队列为空!");
         }
-        tasks.forEach(executorService::execute);
+        List<Runnable> rejected = executorService.executeAll(tasks);
+        if(!rejected.isEmpty()){
+            throw new RejectedExecutionException(rejected.size() + "个任务被线程池拒绝!");
+        }
+    }
+    /**
+     * 开启线程池大小自适应调整，核心线程数在[minCoreSize, maxCoreSize]之间随负载变化
+     * @param minCoreSize-核心线程数下限
+     * @param maxCoreSize-核心线程数上限
+     * @title enableAdaptivePoolSize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public static synchronized void enableAdaptivePoolSize(int minCoreSize, int maxCoreSize){
+        if(null != poolSizeController){
+            poolSizeController.stop();
+        }
+        poolSizeController = new AdaptivePoolSizeController(executorService, minCoreSize, maxCoreSize, ADAPTIVE_STEP
+                , ADAPTIVE_PERIOD_MILLIS, TARGET_QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        poolSizeController.start();
+    }
+    /**
+     * 关闭线程池大小自适应调整，线程池保持当前大小
+     * @title disableAdaptivePoolSize
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    public static synchronized void disableAdaptivePoolSize(){
+        if(null != poolSizeController){
+            poolSizeController.stop();
+            poolSizeController = null;
+        }
     }
 }
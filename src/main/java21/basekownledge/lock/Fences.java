@@ -0,0 +1,27 @@
+package basekownledge.lock;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * 内存屏障(JDK 21版本：VarHandle)
+ * 编译到多版本jar的META-INF/versions/21下，JDK 21及以上运行时替换src/main/java中的同名类，
+ * 两个版本的方法签名必须保持一致
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title Fences
+ * @date 2026/10/17
+ */
+final class Fences {
+
+    private Fences() {
+    }
+    /**
+     * 读屏障：屏障之前的读不会被重排到屏障之后的读、写之后
+     * @title loadFence
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     */
+    static void loadFence() {
+        VarHandle.acquireFence();
+    }
+}
@@ -0,0 +1,39 @@
+package basekownledge.threadpool;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 每任务一个线程的执行器所用的线程工厂(JDK 21版本：虚拟线程)
+ * 编译到多版本jar的META-INF/versions/21下，JDK 21及以上运行时替换src/main/java中的同名类，
+ * 两个版本的方法签名必须保持一致
+ * @author yuanfei0241@hsyuntai.com
+ * @version V1.0.0
+ * @title TaskThreads
+ * @date 2026/10/17
+ */
+final class TaskThreads {
+
+    private TaskThreads() {
+    }
+    /**
+     * 是否使用虚拟线程
+     * @title isVirtual
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return boolean
+     */
+    static boolean isVirtual() {
+        return true;
+    }
+    /**
+     * 创建虚拟线程工厂，线程名为namePrefix加序号(工厂是线程安全的)
+     * @param namePrefix-线程名前缀
+     * @title newFactory
+     * @author yuanfei0241@hsyuntai.com
+     * @since v1.0.0
+     * @return ThreadFactory
+     */
+    static ThreadFactory newFactory(String namePrefix) {
+        return Thread.ofVirtual().name(namePrefix, 0).factory();
+    }
+}